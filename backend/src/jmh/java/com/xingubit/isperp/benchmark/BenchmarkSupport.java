@@ -0,0 +1,87 @@
+package com.xingubit.isperp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.util.JwtUtil;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Montagem dos objetos usados pelos benchmarks fora do contexto Spring
+ */
+final class BenchmarkSupport {
+
+    static final String JWT_SECRET =
+            "myVerySecureSecretKeyThatIsAtLeast256BitsLongForJWTSecurityAndMustBeAtLeast32CharactersLongToMeetTheRequirements";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", JWT_SECRET);
+        setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    // Equivalente ao ObjectMapper configurado pelo Spring Boot (módulos JSR-310, datas em ISO-8601)
+    static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    static List<Customer> customers(int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Customer> customers = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Customer customer = new Customer();
+            customer.setId((long) i);
+            customer.setName("Cliente de Teste " + i);
+            customer.setCpf(String.format("%011d", i));
+            customer.setEmail("cliente" + i + "@exemplo.com.br");
+            customer.setPhone("11987654321");
+            customer.setAddress("Rua das Palmeiras, " + i + " - Centro");
+            customer.setCity("São Paulo");
+            customer.setState("SP");
+            customer.setZipCode("01001-000");
+            customer.setActive(i % 10 != 0);
+            customer.setCreatedAt(now);
+            customer.setUpdatedAt(now);
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    /**
+     * Gera um CPF válido (com dígitos verificadores) a partir dos 9 primeiros dígitos
+     */
+    static String validCpf(long base) {
+        char[] digits = String.format("%09d", base % 1_000_000_000L).toCharArray();
+        int firstSum = 0;
+        int secondSum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = digits[i] - '0';
+            firstSum += digit * (10 - i);
+            secondSum += digit * (11 - i);
+        }
+        int first = firstSum % 11 < 2 ? 0 : 11 - firstSum % 11;
+        secondSum += first * 2;
+        int second = secondSum % 11 < 2 ? 0 : 11 - secondSum % 11;
+        return new String(digits) + first + second;
+    }
+
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,85 @@
+package com.xingubit.isperp.benchmark;
+
+import com.xingubit.isperp.util.CnabReturnParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura de um retorno CNAB 240 gerado no setup (pares de segmentos T/U de liquidação),
+ * sem a conciliação com o banco
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CnabReturnParserBenchmark {
+
+    @Param({"100000", "500000"})
+    public int lines;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = Files.createTempFile("cnab240-", ".ret");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            char[] line = new char[240];
+            for (int i = 0; i < lines / 2; i++) {
+                Arrays.fill(line, ' ');
+                put(line, 1, "341");
+                put(line, 8, "3");
+                put(line, 14, "T");
+                put(line, 16, "06");
+                put(line, 59, pad(i + 1, 15));
+                put(line, 133, "1");
+                put(line, 134, "0000" + BenchmarkSupport.validCpf(i));
+                writer.write(line);
+                writer.write("\r\n");
+
+                Arrays.fill(line, ' ');
+                put(line, 1, "341");
+                put(line, 8, "3");
+                put(line, 14, "U");
+                put(line, 16, "06");
+                put(line, 78, pad(9990 + i % 1000, 15));
+                put(line, 138, "10112026");
+                put(line, 146, "11112026");
+                writer.write(line);
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CnabReturnParser.Result parse(Blackhole blackhole) throws Exception {
+        return CnabReturnParser.parse(file, blackhole::consume);
+    }
+
+    private static void put(char[] line, int position, String value) {
+        value.getChars(0, value.length(), line, position - 1);
+    }
+
+    private static String pad(long value, int width) {
+        String digits = Long.toString(value);
+        return "0".repeat(width - digits.length()) + digits;
+    }
+}
@@ -0,0 +1,46 @@
+package com.xingubit.isperp.benchmark;
+
+import com.xingubit.isperp.util.CpfValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CpfValidatorBenchmark {
+
+    private final String formattedCpf = "529.982.247-25";
+    private final String cleanCpf = "52998224725";
+    private final String invalidCpf = "111.111.111-11";
+
+    @Benchmark
+    public boolean isValidFormatted() {
+        return CpfValidator.isValid(formattedCpf);
+    }
+
+    @Benchmark
+    public boolean isValidClean() {
+        return CpfValidator.isValid(cleanCpf);
+    }
+
+    @Benchmark
+    public boolean isValidRepeatedDigits() {
+        return CpfValidator.isValid(invalidCpf);
+    }
+
+    @Benchmark
+    public String clean() {
+        return CpfValidator.clean(formattedCpf);
+    }
+
+    @Benchmark
+    public String format() {
+        return CpfValidator.format(cleanCpf);
+    }
+}
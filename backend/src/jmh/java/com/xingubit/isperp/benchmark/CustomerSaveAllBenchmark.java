@@ -0,0 +1,110 @@
+package com.xingubit.isperp.benchmark;
+
+import com.xingubit.isperp.IspErpApplication;
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.repository.CustomerRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de CustomerRepository.saveAll contra um MySQL real (linhas/s no contador "rows").
+ * Requer o banco do application.yml (ou DB_HOST/DB_NAME/DB_USERNAME/DB_PASSWORD).
+ * Com batching=false o batch JDBC do Hibernate fica desligado, reproduzindo o comportamento
+ * de um insert por round-trip (como com IDENTITY) para comparação.
+ *
+ * ./gradlew jmh -Pjmh.includes=CustomerSaveAll
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CustomerSaveAllBenchmark {
+
+    // Empresa criada no setup inicial; os inserts ficam todos na mesma partição
+    private static final Long BENCHMARK_COMPANY_ID = 1L;
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean batching;
+
+    private ConfigurableApplicationContext context;
+    private CustomerRepository customerRepository;
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> insertedIds = new ArrayList<>();
+    private long nextCpf;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Inserted {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(IspErpApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos: properties() só define padrões, e o batch_size do application.yml
+                // prevaleceria, deixando o batch ligado também em batching=false
+                .run("--spring.jpa.properties.hibernate.jdbc.batch_size=" + (batching ? 100 : 0),
+                        "--logging.level.com.xingubit.isperp=WARN");
+        customerRepository = context.getBean(CustomerRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        // Faixa aleatória de CPFs para não colidir com dados existentes
+        nextCpf = ThreadLocalRandom.current().nextLong(100_000_000L, 800_000_000L);
+    }
+
+    @Benchmark
+    public void saveAll(Inserted inserted) {
+        List<Customer> customers = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long seq = nextCpf++;
+            Customer customer = new Customer();
+            customer.setCompanyId(BENCHMARK_COMPANY_ID);
+            customer.setName("Cliente Benchmark " + seq);
+            customer.setCpf(BenchmarkSupport.validCpf(seq));
+            customer.setEmail("benchmark" + seq + "@exemplo.com.br");
+            customer.setCity("São Paulo");
+            customer.setState("SP");
+            customer.setActive(true);
+            customers.add(customer);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> customerRepository.saveAll(customers));
+        for (Customer customer : customers) {
+            insertedIds.add(customer.getId());
+        }
+        inserted.rows += rows;
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInserted() {
+        for (int from = 0; from < insertedIds.size(); from += 1000) {
+            customerRepository.deleteByIds(BENCHMARK_COMPANY_ID, insertedIds.subList(from, Math.min(from + 1000, insertedIds.size())));
+        }
+        insertedIds.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.xingubit.isperp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xingubit.isperp.entity.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CustomerSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkSupport.objectMapper();
+        customers = BenchmarkSupport.customers(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public void serializeToStream() throws Exception {
+        // Descarta a saída para medir apenas a serialização, como na escrita da resposta HTTP
+        objectMapper.writeValue(OutputStream.nullOutputStream(), customers);
+    }
+}
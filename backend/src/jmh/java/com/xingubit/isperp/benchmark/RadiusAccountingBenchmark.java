@@ -0,0 +1,103 @@
+package com.xingubit.isperp.benchmark;
+
+import com.xingubit.isperp.service.UsageAggregator;
+import com.xingubit.isperp.util.RadiusAccounting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de um pacote no listener, sem o socket: leitura, validação do autenticador
+ * e agregação por cliente. Roda com 4 threads para medir a disputa pelas faixas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class RadiusAccountingBenchmark {
+
+    private static final byte[] SECRET = "segredo".getBytes(StandardCharsets.UTF_8);
+    private static final long COMPANY_ID = 1L;
+
+    @Param({"1000", "100000"})
+    public int customers;
+
+    private UsageAggregator aggregator;
+    private ByteBuffer[] packets;
+
+    @State(Scope.Thread)
+    public static class Receiver {
+        final RadiusAccounting.Request request = new RadiusAccounting.Request();
+        MessageDigest md5;
+        int next;
+
+        @Setup
+        public void setUp() throws Exception {
+            md5 = MessageDigest.getInstance("MD5");
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        // Sem banco: o benchmark não chama flush
+        aggregator = new UsageAggregator(null, null, new SimpleMeterRegistry(), TimeUnit.HOURS.toMillis(2), 1000);
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        packets = new ByteBuffer[customers];
+        for (int customer = 1; customer <= customers; customer++) {
+            ByteBuffer packet = ByteBuffer.allocateDirect(RadiusAccounting.MAX_PACKET_LENGTH);
+            packet.put((byte) RadiusAccounting.ACCOUNTING_REQUEST).put((byte) customer).putShort((short) 0).put(new byte[16]);
+            put(packet, RadiusAccounting.USER_NAME, (customer + "@bench").getBytes(StandardCharsets.UTF_8));
+            put(packet, RadiusAccounting.ACCT_SESSION_ID, ("bench-" + customer).getBytes(StandardCharsets.UTF_8));
+            putInt(packet, RadiusAccounting.NAS_IP_ADDRESS, 0x7F000001);
+            putInt(packet, RadiusAccounting.ACCT_STATUS_TYPE, RadiusAccounting.STATUS_INTERIM_UPDATE);
+            putInt(packet, RadiusAccounting.ACCT_INPUT_OCTETS, 100_000 + customer);
+            putInt(packet, RadiusAccounting.ACCT_OUTPUT_OCTETS, 1_000_000 + customer);
+            putInt(packet, RadiusAccounting.ACCT_SESSION_TIME, 600);
+            packet.putShort(2, (short) packet.position());
+            packet.flip();
+            RadiusAccounting.sign(packet, SECRET, md5);
+            packets[customer - 1] = packet;
+        }
+    }
+
+    @Benchmark
+    public boolean parseAndAggregate(Receiver receiver) {
+        ByteBuffer packet = packets[receiver.next++ % packets.length];
+        if (!RadiusAccounting.parse(packet, receiver.request)) {
+            return false;
+        }
+        aggregator.record(receiver.request, COMPANY_ID, System.currentTimeMillis());
+        return true;
+    }
+
+    @Benchmark
+    public boolean parseVerifyAndAggregate(Receiver receiver) {
+        ByteBuffer packet = packets[receiver.next++ % packets.length];
+        if (!RadiusAccounting.parse(packet, receiver.request)
+                || !RadiusAccounting.verify(packet, SECRET, receiver.md5)) {
+            return false;
+        }
+        aggregator.record(receiver.request, COMPANY_ID, System.currentTimeMillis());
+        return true;
+    }
+
+    private static void put(ByteBuffer packet, int type, byte[] value) {
+        packet.put((byte) type).put((byte) (value.length + 2)).put(value);
+    }
+
+    private static void putInt(ByteBuffer packet, int type, int value) {
+        packet.put((byte) type).put((byte) 6).putInt(value);
+    }
+}
@@ -0,0 +1,145 @@
+package com.xingubit.isperp.benchmark;
+
+import com.xingubit.isperp.util.RadiusAccounting;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga para o listener de contabilização RADIUS.
+ * Abre uma sessão por cliente (ids 1..clientes), envia Interim-Update em rodízio com
+ * contadores crescentes no ritmo pedido e encerra todas as sessões com Stop.
+ *
+ * Uso: RadiusLoadGenerator host porta segredo clientes pacotes/s segundos
+ */
+public final class RadiusLoadGenerator {
+
+    private final DatagramChannel channel;
+    private final byte[] secret;
+    private final MessageDigest md5;
+    private final ByteBuffer packet = ByteBuffer.allocate(RadiusAccounting.MAX_PACKET_LENGTH);
+    private final ByteBuffer response = ByteBuffer.allocate(RadiusAccounting.MAX_PACKET_LENGTH);
+    private int identifier;
+    private long sent;
+    private long acknowledged;
+
+    RadiusLoadGenerator(DatagramChannel channel, byte[] secret) throws Exception {
+        this.channel = channel;
+        this.secret = secret;
+        this.md5 = MessageDigest.getInstance("MD5");
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 1813;
+        byte[] secret = (args.length > 2 ? args[2] : "segredo").getBytes(StandardCharsets.UTF_8);
+        int customers = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int rate = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+        int seconds = args.length > 5 ? Integer.parseInt(args[5]) : 30;
+
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.connect(new InetSocketAddress(host, port));
+            channel.configureBlocking(false);
+            new RadiusLoadGenerator(channel, secret).run(customers, rate, seconds);
+        }
+    }
+
+    void run(int customers, int rate, int seconds) throws Exception {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long start = System.nanoTime();
+        long next = start;
+
+        for (int customer = 1; customer <= customers; customer++) {
+            next = pace(next, intervalNanos);
+            send(RadiusAccounting.STATUS_START, customer, 0, 0);
+        }
+
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        long round = 1;
+        while (System.nanoTime() < deadline) {
+            for (int customer = 1; customer <= customers && System.nanoTime() < deadline; customer++) {
+                next = pace(next, intervalNanos);
+                send(RadiusAccounting.STATUS_INTERIM_UPDATE, customer, round, round * 60);
+            }
+            round++;
+        }
+
+        for (int customer = 1; customer <= customers; customer++) {
+            next = pace(next, intervalNanos);
+            send(RadiusAccounting.STATUS_STOP, customer, round, round * 60);
+        }
+
+        // Aguarda as últimas respostas
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (acknowledged < sent && System.nanoTime() < waitUntil) {
+            drainResponses();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d pacotes enviados, %d confirmados em %.1f s (%.0f pacotes/s)%n",
+                sent, acknowledged, elapsed, sent / elapsed);
+    }
+
+    private long pace(long next, long intervalNanos) throws Exception {
+        long now;
+        while ((now = System.nanoTime()) < next) {
+            drainResponses();
+            LockSupport.parkNanos(Math.min(next - now, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        return next + intervalNanos;
+    }
+
+    private void send(int statusType, int customer, long round, long sessionTime) throws Exception {
+        // ~1 MB de download e 100 KB de upload por rodada, passando dos 4 GB (gigawords) em sessões longas
+        long input = round * 100_000L;
+        long output = round * 1_000_000L;
+
+        packet.clear();
+        packet.put((byte) RadiusAccounting.ACCOUNTING_REQUEST)
+                .put((byte) (identifier++ & 0xFF))
+                .putShort((short) 0)
+                .put(new byte[16]);
+        string(RadiusAccounting.USER_NAME, customer + "@bench");
+        string(RadiusAccounting.ACCT_SESSION_ID, "bench-" + customer);
+        integer(RadiusAccounting.NAS_IP_ADDRESS, 0x7F000001);
+        integer(RadiusAccounting.ACCT_STATUS_TYPE, statusType);
+        integer(RadiusAccounting.ACCT_INPUT_OCTETS, input & 0xFFFFFFFFL);
+        integer(RadiusAccounting.ACCT_INPUT_GIGAWORDS, input >>> 32);
+        integer(RadiusAccounting.ACCT_OUTPUT_OCTETS, output & 0xFFFFFFFFL);
+        integer(RadiusAccounting.ACCT_OUTPUT_GIGAWORDS, output >>> 32);
+        integer(RadiusAccounting.ACCT_SESSION_TIME, sessionTime);
+        packet.putShort(2, (short) packet.position());
+        packet.flip();
+        RadiusAccounting.sign(packet, secret, md5);
+
+        channel.write(packet);
+        sent++;
+    }
+
+    private void string(int type, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        packet.put((byte) type).put((byte) (bytes.length + 2)).put(bytes);
+    }
+
+    private void integer(int type, long value) {
+        packet.put((byte) type).put((byte) 6).putInt((int) value);
+    }
+
+    private void drainResponses() throws Exception {
+        while (true) {
+            response.clear();
+            if (channel.read(response) <= 0) {
+                return;
+            }
+            if ((response.get(0) & 0xFF) == RadiusAccounting.ACCOUNTING_RESPONSE) {
+                acknowledged++;
+            }
+        }
+    }
+}
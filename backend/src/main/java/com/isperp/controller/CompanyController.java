@@ -1,12 +1,18 @@
 package com.isperp.controller;
 
+import com.xingubit.isperp.dto.CompanySummary;
 import com.xingubit.isperp.entity.Company;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import com.xingubit.isperp.util.EntityTags;
 import com.isperp.service.CompanyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -21,15 +27,18 @@ public class CompanyController {
     private CompanyService companyService;
 
     @GetMapping
-    public ResponseEntity<List<Company>> getAllCompanies() {
-        List<Company> companies = companyService.getAllCompanies();
+    public ResponseEntity<List<CompanySummary>> getAllCompanies(WebRequest webRequest) {
+        if (EntityTags.notModified(webRequest, "companies", companyService.getCompaniesFingerprint())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        List<CompanySummary> companies = companyService.getAllCompanies();
         return ResponseEntity.ok(companies);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Company> getCompanyById(@PathVariable Long id) {
         Optional<Company> company = companyService.getCompanyById(id);
-        return company.map(ResponseEntity::ok)
+        return company.map(c -> EntityTags.ok("company", c.getId(), c.getVersion(), c.getUpdatedAt()).body(c))
                      .orElse(ResponseEntity.notFound().build());
     }
 
@@ -46,10 +55,18 @@ public class CompanyController {
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Company> updateCompany(@PathVariable Long id, @Valid @RequestBody Company companyDetails) {
+    public ResponseEntity<Company> updateCompany(@PathVariable Long id, @Valid @RequestBody Company companyDetails,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Company updatedCompany = companyService.updateCompany(id, companyDetails);
-            return ResponseEntity.ok(updatedCompany);
+            Long expectedVersion = EntityTags.parseVersion(ifMatch, "company", id);
+            Company updatedCompany = companyService.updateCompany(id, companyDetails, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of("company", updatedCompany.getId(), updatedCompany.getVersion()))
+                    .body(updatedCompany);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -1,8 +1,13 @@
 package com.isperp.controller;
 
 import com.xingubit.isperp.entity.SiteSettings;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import com.xingubit.isperp.util.EntityTags;
 import com.isperp.service.SiteSettingsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,16 +26,29 @@ public class SiteSettingsController {
     @GetMapping
     public ResponseEntity<SiteSettings> getSiteSettings() {
         Optional<SiteSettings> settings = siteSettingsService.getSiteSettings();
-        return settings.map(ResponseEntity::ok)
+        return settings.map(s -> EntityTags.ok("site-settings", s.getId(), s.getVersion(), s.getUpdatedAt()).body(s))
                       .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<SiteSettings> updateSiteSettings(@Valid @RequestBody SiteSettings settingsDetails) {
+    public ResponseEntity<SiteSettings> updateSiteSettings(@Valid @RequestBody SiteSettings settingsDetails,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            SiteSettings updatedSettings = siteSettingsService.updateSiteSettings(settingsDetails);
-            return ResponseEntity.ok(updatedSettings);
+            // O ETag carrega o id do registro único de configurações
+            Long expectedVersion = null;
+            Optional<SiteSettings> current = siteSettingsService.getSiteSettings();
+            if (current.isPresent()) {
+                expectedVersion = EntityTags.parseVersion(ifMatch, "site-settings", current.get().getId());
+            }
+            SiteSettings updatedSettings = siteSettingsService.updateSiteSettings(settingsDetails, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of("site-settings", updatedSettings.getId(), updatedSettings.getVersion()))
+                    .body(updatedSettings);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
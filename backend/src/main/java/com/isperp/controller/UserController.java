@@ -1,15 +1,22 @@
 package com.isperp.controller;
 
+import com.xingubit.isperp.dto.UserSummary;
 import com.xingubit.isperp.entity.User;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import com.xingubit.isperp.util.EntityTags;
+import com.xingubit.isperp.util.TenantContext;
 import com.xingubit.isperp.entity.User.UserRole;
 import com.isperp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -24,15 +31,19 @@ public class UserController {
     private UserService userService;
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserSummary>> getAllUsers(WebRequest webRequest) {
+        if (EntityTags.notModified(webRequest, "users", TenantContext.getCompanyId(),
+                userService.getUsersFingerprint())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.AUTHORIZATION).build();
+        }
+        List<UserSummary> users = userService.getAllUsers();
+        return ResponseEntity.ok().varyBy(HttpHeaders.AUTHORIZATION).body(users);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
         Optional<User> user = userService.getUserById(id);
-        return user.map(ResponseEntity::ok)
+        return user.map(u -> EntityTags.ok("user", u.getId(), u.getVersion(), u.getUpdatedAt()).body(u))
                   .orElse(ResponseEntity.notFound().build());
     }
 
@@ -49,10 +60,18 @@ public class UserController {
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails) {
+    public ResponseEntity<User> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            return ResponseEntity.ok(updatedUser);
+            Long expectedVersion = EntityTags.parseVersion(ifMatch, "user", id);
+            User updatedUser = userService.updateUser(id, userDetails, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of("user", updatedUser.getId(), updatedUser.getVersion()))
+                    .body(updatedUser);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         } catch (Exception e) {
@@ -81,11 +100,11 @@ public class UserController {
     }
 
     @GetMapping("/current")
-    public ResponseEntity<User> getCurrentUser() {
+    public ResponseEntity<UserSummary> getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String email = auth.getName();
         
-        Optional<User> user = userService.getUserByEmail(email);
+        Optional<UserSummary> user = userService.getCurrentUser(email);
         return user.map(ResponseEntity::ok)
                   .orElse(ResponseEntity.notFound().build());
     }
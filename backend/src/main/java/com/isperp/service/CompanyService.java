@@ -1,35 +1,73 @@
 package com.isperp.service;
 
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.dto.CompanySummary;
 import com.xingubit.isperp.entity.Company;
 import com.xingubit.isperp.repository.CompanyRepository;
+import com.xingubit.isperp.service.AuditTrail;
+import com.xingubit.isperp.util.EntityTags;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class CompanyService {
 
     @Autowired
     private CompanyRepository companyRepository;
 
-    public List<Company> getAllCompanies() {
-        return companyRepository.findAll();
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Transactional(readOnly = true)
+    public List<CompanySummary> getAllCompanies() {
+        return companyRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public CollectionFingerprint getCompaniesFingerprint() {
+        return companyRepository.fingerprint();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Company> getCompanyById(Long id) {
         return companyRepository.findById(id);
     }
 
     public Company createCompany(Company company) {
-        return companyRepository.save(company);
+        Company saved = companyRepository.save(company);
+        auditTrail.record(AuditTrail.COMPANY, saved.getId(), AuditTrail.Action.CREATE, AuditTrail.changes()
+                .set("name", saved.getName())
+                .set("document", saved.getDocument()));
+        return saved;
     }
 
     public Company updateCompany(Long id, Company companyDetails) {
+        return updateCompany(id, companyDetails, null);
+    }
+
+    /**
+     * Atualiza a empresa
+     * @param expectedVersion versão informada no If-Match (null para não conferir)
+     */
+    public Company updateCompany(Long id, Company companyDetails, Long expectedVersion) {
         Company company = companyRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Empresa não encontrada"));
+        EntityTags.checkVersion(expectedVersion, company.getVersion());
 
+        AuditTrail.Changes changes = AuditTrail.changes()
+                .diff("name", company.getName(), companyDetails.getName())
+                .diff("document", company.getDocument(), companyDetails.getDocument())
+                .diff("email", company.getEmail(), companyDetails.getEmail())
+                .diff("phone", company.getPhone(), companyDetails.getPhone())
+                .diff("address", company.getAddress(), companyDetails.getAddress())
+                .diff("website", company.getWebsite(), companyDetails.getWebsite());
         company.setName(companyDetails.getName());
         company.setDocument(companyDetails.getDocument());
         company.setEmail(companyDetails.getEmail());
@@ -37,7 +75,9 @@ public class CompanyService {
         company.setAddress(companyDetails.getAddress());
         company.setWebsite(companyDetails.getWebsite());
 
-        return companyRepository.save(company);
+        Company saved = companyRepository.save(company);
+        auditTrail.record(AuditTrail.COMPANY, id, AuditTrail.Action.UPDATE, changes);
+        return saved;
     }
 
     public void deleteCompany(Long id) {
@@ -45,5 +85,7 @@ public class CompanyService {
                 .orElseThrow(() -> new RuntimeException("Empresa não encontrada"));
         
         companyRepository.delete(company);
+        auditTrail.record(AuditTrail.COMPANY, id, AuditTrail.Action.DELETE,
+                AuditTrail.changes().set("name", company.getName()));
     }
 }
\ No newline at end of file
@@ -2,10 +2,17 @@ package com.isperp.service;
 
 import com.xingubit.isperp.entity.SiteSettings;
 import com.xingubit.isperp.repository.SiteSettingsRepository;
+import com.xingubit.isperp.service.AuditTrail;
+import com.xingubit.isperp.util.EntityTags;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SiteSettingsService {
@@ -13,25 +20,106 @@ public class SiteSettingsService {
     @Autowired
     private SiteSettingsRepository siteSettingsRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    // Validade do cache, para refletir alterações feitas por outras instâncias
+    @Value("${isperp.site-settings.cache-ttl-ms:300000}")
+    private long cacheTtlMillis;
+
+    // Guarda uma cópia desanexada; cada leitura recebe outra cópia, para que quem altera o
+    // objeto devolvido (ou o contexto de persistência que o carregou) não mude o cache
+    private record CachedSettings(SiteSettings settings, long expiresAt) {
+    }
+
+    private volatile CachedSettings cached;
+
+    // Incrementado a cada atualização, para descartar leituras iniciadas antes dela
+    private final AtomicLong generation = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void registerMetrics() {
+        hits = Counter.builder("isperp.cache.requests")
+                .tag("cache", "site_settings")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("isperp.cache.requests")
+                .tag("cache", "site_settings")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
     public Optional<SiteSettings> getSiteSettings() {
-        return siteSettingsRepository.findFirstByOrderByIdAsc();
+        CachedSettings current = cached;
+        if (current != null && current.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.of(copyOf(current.settings()));
+        }
+
+        misses.increment();
+        long readGeneration = generation.get();
+        Optional<SiteSettings> settings = siteSettingsRepository.findFirstByOrderByIdAsc();
+        // A ausência não é guardada: o setup inicial grava as configurações direto no repositório
+        if (settings.isPresent() && generation.get() == readGeneration) {
+            cached = new CachedSettings(copyOf(settings.get()), System.currentTimeMillis() + cacheTtlMillis);
+        }
+        return settings;
     }
 
     public SiteSettings updateSiteSettings(SiteSettings settingsDetails) {
+        return updateSiteSettings(settingsDetails, null);
+    }
+
+    /**
+     * Atualiza as configurações do site
+     * @param expectedVersion versão informada no If-Match (null para não conferir)
+     */
+    public SiteSettings updateSiteSettings(SiteSettings settingsDetails, Long expectedVersion) {
+        // Lê direto do banco: a versão em cache pode estar defasada em relação a outras instâncias
         Optional<SiteSettings> existingSettings = siteSettingsRepository.findFirstByOrderByIdAsc();
         
         SiteSettings settings;
         if (existingSettings.isPresent()) {
             settings = existingSettings.get();
+            EntityTags.checkVersion(expectedVersion, settings.getVersion());
         } else {
             settings = new SiteSettings();
         }
 
+        AuditTrail.Changes changes = AuditTrail.changes()
+                .diff("siteTitle", settings.getSiteTitle(), settingsDetails.getSiteTitle())
+                .diff("siteDescription", settings.getSiteDescription(), settingsDetails.getSiteDescription())
+                .diff("primaryColor", settings.getPrimaryColor(), settingsDetails.getPrimaryColor())
+                .diff("secondaryColor", settings.getSecondaryColor(), settingsDetails.getSecondaryColor());
         settings.setSiteTitle(settingsDetails.getSiteTitle());
         settings.setSiteDescription(settingsDetails.getSiteDescription());
         settings.setPrimaryColor(settingsDetails.getPrimaryColor());
         settings.setSecondaryColor(settingsDetails.getSecondaryColor());
 
-        return siteSettingsRepository.save(settings);
+        SiteSettings saved = siteSettingsRepository.save(settings);
+        generation.incrementAndGet();
+        auditTrail.record(AuditTrail.SITE_SETTINGS, saved.getId(),
+                existingSettings.isPresent() ? AuditTrail.Action.UPDATE : AuditTrail.Action.CREATE, changes);
+        cached = new CachedSettings(copyOf(saved), System.currentTimeMillis() + cacheTtlMillis);
+        return saved;
+    }
+
+    private static SiteSettings copyOf(SiteSettings settings) {
+        return SiteSettings.builder()
+                .id(settings.getId())
+                .siteTitle(settings.getSiteTitle())
+                .siteDescription(settings.getSiteDescription())
+                .primaryColor(settings.getPrimaryColor())
+                .secondaryColor(settings.getSecondaryColor())
+                .version(settings.getVersion())
+                .createdAt(settings.getCreatedAt())
+                .updatedAt(settings.getUpdatedAt())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,26 @@
 package com.isperp.service;
 
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.dto.UserSummary;
 import com.xingubit.isperp.entity.User;
 import com.xingubit.isperp.repository.UserRepository;
+import com.xingubit.isperp.util.EntityTags;
+import com.xingubit.isperp.util.TenantContext;
+import com.xingubit.isperp.service.AuditTrail;
+import com.xingubit.isperp.service.BusinessErrorMetrics;
+import com.xingubit.isperp.service.PrincipalCache;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class UserService {
 
     @Autowired
@@ -18,14 +29,38 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Autowired
+    private BusinessErrorMetrics businessErrorMetrics;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Transactional(readOnly = true)
+    public List<UserSummary> getAllUsers() {
+        return userRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public CollectionFingerprint getUsersFingerprint() {
+        return userRepository.fingerprint();
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
 
+    /**
+     * Usuário autenticado, servido pelo cache de principais
+     */
+    public Optional<UserSummary> getCurrentUser(String email) {
+        return principalCache.get(email).map(PrincipalCache.CachedPrincipal::user);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -33,36 +68,76 @@ public class UserService {
     public User createUser(User user) {
         // Verificar se o email já existe
         if (userRepository.findByEmail(user.getEmail()).isPresent()) {
+            businessErrorMetrics.duplicateEmail();
             throw new RuntimeException("Email já existe");
         }
 
+        // Sem empresa informada, o usuário fica na empresa de quem o cadastrou
+        if (user.getCompanyId() == null) {
+            user.setCompanyId(TenantContext.requireCompanyId());
+        }
+
         // Criptografar a senha
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        auditTrail.record(AuditTrail.USER, saved.getId(), AuditTrail.Action.CREATE, AuditTrail.changes()
+                .set("name", saved.getName())
+                .set("email", saved.getEmail())
+                .set("role", saved.getRole())
+                .set("active", saved.getActive())
+                .set("companyId", saved.getCompanyId()));
+        return saved;
     }
 
     public User updateUser(Long id, User userDetails) {
+        return updateUser(id, userDetails, null);
+    }
+
+    /**
+     * Atualiza o usuário
+     * @param expectedVersion versão informada no If-Match (null para não conferir)
+     */
+    public User updateUser(Long id, User userDetails, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        EntityTags.checkVersion(expectedVersion, user.getVersion());
 
         // Verificar se o email já existe (exceto para o próprio usuário)
         Optional<User> existingUserByEmail = userRepository.findByEmail(userDetails.getEmail());
         if (existingUserByEmail.isPresent() && !existingUserByEmail.get().getId().equals(id)) {
+            businessErrorMetrics.duplicateEmail();
             throw new RuntimeException("Email já existe");
         }
 
+        String previousEmail = user.getEmail();
+        AuditTrail.Changes changes = AuditTrail.changes()
+                .diff("name", user.getName(), userDetails.getName())
+                .diff("email", previousEmail, userDetails.getEmail())
+                .diff("role", user.getRole(), userDetails.getRole())
+                .diff("active", user.getActive(), userDetails.getActive());
         user.setName(userDetails.getName());
         user.setEmail(userDetails.getEmail());
         user.setRole(userDetails.getRole());
         user.setActive(userDetails.getActive());
+        if (userDetails.getCompanyId() != null) {
+            changes.diff("companyId", user.getCompanyId(), userDetails.getCompanyId());
+            user.setCompanyId(userDetails.getCompanyId());
+        }
 
         // Só atualizar a senha se uma nova foi fornecida
         if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+            // Só o fato da troca; o hash não vai para a auditoria
+            changes.set("password", "alterada");
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Depois do commit, para a próxima requisição já ver o papel e o status novos
+        principalCache.invalidate(previousEmail);
+        principalCache.invalidate(saved.getEmail());
+        auditTrail.record(AuditTrail.USER, id, AuditTrail.Action.UPDATE, changes);
+        return saved;
     }
 
     public void deleteUser(Long id) {
@@ -70,5 +145,8 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
         
         userRepository.delete(user);
+        principalCache.invalidate(user.getEmail());
+        auditTrail.record(AuditTrail.USER, id, AuditTrail.Action.DELETE,
+                AuditTrail.changes().set("email", user.getEmail()));
     }
 }
\ No newline at end of file
@@ -3,7 +3,8 @@ package com.xingubit.isperp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
+// Os serviços e controllers de usuários, empresas e configurações ficam em com.isperp
+@SpringBootApplication(scanBasePackages = {"com.xingubit.isperp", "com.isperp"})
 public class IspErpApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,46 @@
+package com.xingubit.isperp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor das faixas do faturamento mensal.
+ * O número de threads limita quantas conexões do pool o faturamento ocupa ao mesmo tempo;
+ * a fila não tem limite porque recebe uma tarefa por faixa, já planejadas no início da execução.
+ */
+@Configuration
+public class BillingExecutorConfig {
+
+    public static final String BILLING_EXECUTOR = "billingExecutor";
+
+    @Value("${isperp.billing.workers:4}")
+    private int workers;
+
+    @Bean(name = BILLING_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor billingExecutor(MeterRegistry meterRegistry) {
+        int threads = Math.max(1, workers);
+
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "billing-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+
+        new ExecutorServiceMetrics(executor, "billing", List.of()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,139 @@
+package com.xingubit.isperp.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que limita quantas conexões podem estar em uso ao mesmo tempo.
+ * Com virtual threads não há mais um pool de threads limitando a concorrência: sem
+ * o semáforo, milhares de requisições disputariam as poucas conexões do Hikari.
+ * Quem não consegue uma permissão dentro do prazo recebe erro imediatamente,
+ * em vez de esperar o connection-timeout do pool.
+ * Uma thread que já tem uma conexão aberta por aqui e pede outra (ex.: a reserva de ids do
+ * TableGenerator, feita numa transação isolada) não espera permissão: se todas as permissões
+ * estivessem com threads nessa situação, nenhuma andaria. Por isso o limite deve ficar abaixo
+ * do tamanho do pool, deixando conexões livres para esses pedidos aninhados.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final Runnable onRejected;
+    // Conexões abertas por este DataSource e ainda não fechadas, por thread
+    private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public BulkheadDataSource(DataSource target, int maxConcurrent, long acquireTimeoutMillis, Runnable onRejected) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.onRejected = onRejected;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return open(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return open(() -> super.getConnection(username, password));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private Connection open(ConnectionSource source) throws SQLException {
+        AtomicInteger open = openConnections.get();
+        boolean nested = open.get() > 0;
+        if (!nested) {
+            acquire();
+        }
+        try {
+            return guard(source.get(), open, !nested);
+        } catch (SQLException | RuntimeException e) {
+            if (!nested) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                onRejected.run();
+                throw new SQLTransientConnectionException(
+                        "Limite de conexões simultâneas ao banco atingido (" + acquireTimeoutMillis + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrompido aguardando conexão ao banco", e);
+        }
+    }
+
+    /**
+     * Devolve a permissão (se a conexão tiver uma) quando a conexão é fechada (devolvida ao pool)
+     */
+    private Connection guard(Connection target, AtomicInteger open, boolean holdsPermit) {
+        open.incrementAndGet();
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] {ConnectionProxy.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTargetConnection":
+                            return target;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Bulkhead proxy for " + target;
+                        case "close":
+                            if (released.compareAndSet(false, true)) {
+                                try {
+                                    target.close();
+                                } finally {
+                                    open.decrementAndGet();
+                                    if (holdsPermit) {
+                                        permits.release();
+                                    }
+                                }
+                            }
+                            return null;
+                        case "isClosed":
+                            if (released.get()) {
+                                return true;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,63 @@
+package com.xingubit.isperp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Coloca um {@link BulkheadDataSource} na frente de cada pool do Hikari (primário e réplica).
+ * Ligado por padrão no modo virtual threads (spring.threads.virtual.enabled); pode ser
+ * forçado com isperp.datasource.bulkhead.enabled.
+ * Métricas: isperp.datasource.bulkhead.available, .waiting e .rejected, com a tag pool
+ */
+@Configuration
+@ConditionalOnProperty(name = "isperp.datasource.bulkhead.enabled", havingValue = "true")
+public class DataSourceBulkheadConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(Environment environment,
+                                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+
+                // Abaixo do tamanho do pool: as conexões que sobram atendem os pedidos aninhados
+                // (reserva de ids), que passam pelo bulkhead sem permissão
+                int reserved = environment.getProperty("isperp.datasource.bulkhead.reserved-connections", Integer.class, 1);
+                int limit = Math.max(1, hikari.getMaximumPoolSize() - reserved);
+                int maxConcurrent = Math.min(limit, environment.getProperty(
+                        "isperp.datasource.bulkhead.max-concurrent", Integer.class, limit));
+                String pool = hikari.getPoolName() == null ? beanName : hikari.getPoolName();
+                long acquireTimeoutMillis = environment.getProperty(
+                        "isperp.datasource.bulkhead.acquire-timeout-ms", Long.class, 2000L);
+
+                MeterRegistry registry = meterRegistry.getObject();
+                Counter rejected = Counter.builder("isperp.datasource.bulkhead.rejected")
+                        .description("Pedidos de conexão recusados pelo bulkhead")
+                        .tag("pool", pool)
+                        .register(registry);
+                BulkheadDataSource bulkhead = new BulkheadDataSource(hikari, maxConcurrent,
+                        acquireTimeoutMillis, rejected::increment);
+                Gauge.builder("isperp.datasource.bulkhead.available", bulkhead, BulkheadDataSource::availablePermits)
+                        .description("Permissões livres no bulkhead do banco")
+                        .tag("pool", pool)
+                        .register(registry);
+                Gauge.builder("isperp.datasource.bulkhead.waiting", bulkhead, BulkheadDataSource::queueLength)
+                        .description("Threads aguardando permissão no bulkhead do banco")
+                        .tag("pool", pool)
+                        .register(registry);
+                return bulkhead;
+            }
+        };
+    }
+}
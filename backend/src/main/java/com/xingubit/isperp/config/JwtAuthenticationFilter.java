@@ -0,0 +1,97 @@
+package com.xingubit.isperp.config;
+
+import com.xingubit.isperp.service.PrincipalCache;
+import com.xingubit.isperp.util.JwtUtil;
+import com.xingubit.isperp.util.TenantContext;
+import com.xingubit.isperp.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Autentica a requisição a partir do token Bearer emitido pelo AuthService.
+ * Cada token é verificado uma única vez; as verificações seguintes vêm do {@link VerifiedTokenCache}.
+ * O usuário precisa existir e estar ativo, e o papel vem do cadastro atual ({@link PrincipalCache}),
+ * não da claim do token: desativações e trocas de papel valem antes do token expirar.
+ * A empresa da claim "company" vai para o {@link TenantContext} durante a requisição;
+ * se o usuário tiver mudado de empresa, o token antigo deixa de valer.
+ */
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final PrincipalCache principalCache;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, VerifiedTokenCache tokenCache, PrincipalCache principalCache) {
+        this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
+        this.principalCache = principalCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            VerifiedTokenCache.VerifiedToken verified = verify(header.substring(BEARER_PREFIX.length()));
+            PrincipalCache.CachedPrincipal principal = verified != null
+                    ? principalCache.get(verified.username()).orElse(null)
+                    : null;
+            if (principal != null && principal.isActive()
+                    && Objects.equals(verified.companyId(), principal.user().companyId())) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(verified.username(), null, principal.authorities());
+                authentication.setDetails(detailsSource.buildDetails(request));
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+                TenantContext.setCompanyId(verified.companyId());
+            } else if (verified != null) {
+                log.debug("Token válido para usuário inexistente, inativo ou de outra empresa: {}",
+                        verified.username());
+            }
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private VerifiedTokenCache.VerifiedToken verify(String token) {
+        VerifiedTokenCache.VerifiedToken verified = tokenCache.get(token);
+        if (verified != null) {
+            return verified;
+        }
+
+        try {
+            Claims claims = jwtUtil.parseClaims(token);
+            verified = new VerifiedTokenCache.VerifiedToken(claims.getSubject(), claims.get("role", String.class),
+                    claims.get(JwtUtil.COMPANY_CLAIM, Long.class), claims.getExpiration().getTime());
+            tokenCache.put(token, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token JWT rejeitado: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.xingubit.isperp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor dedicado ao hash de senhas (BCrypt) do login.
+ * Limita quantas CPUs o login pode ocupar e recusa imediatamente quando a fila enche,
+ * em vez de prender as threads do Tomcat.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    public static final String LOGIN_HASH_EXECUTOR = "loginHashExecutor";
+
+    @Value("${isperp.login.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${isperp.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Bean(name = LOGIN_HASH_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolExecutor loginHashExecutor(MeterRegistry meterRegistry) {
+        // Padrão: metade dos processadores, para o restante da API continuar respondendo
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "login-hash-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        // Expõe tamanho da fila, threads ativas e tarefas concluídas/recusadas
+        new ExecutorServiceMetrics(executor, "login.hash", List.of()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,79 @@
+package com.xingubit.isperp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acompanha o atraso da réplica com SHOW REPLICA STATUS. A réplica só recebe leituras
+ * enquanto a replicação estiver rodando e o atraso for no máximo max-lag-seconds.
+ * Métricas: isperp.datasource.replica.lag (segundos, -1 se desconhecido) e .available
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagSeconds;
+    private final boolean requireReplicationStatus;
+
+    private volatile boolean available;
+    private volatile long lagSeconds = -1;
+
+    /**
+     * @param requireReplicationStatus se false, uma instância sem replicação configurada (status vazio)
+     *                                 é considerada em dia; útil com dois bancos locais no lugar de primário/réplica
+     */
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagSeconds, boolean requireReplicationStatus,
+                             MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLagSeconds = maxLagSeconds;
+        this.requireReplicationStatus = requireReplicationStatus;
+
+        Gauge.builder("isperp.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Atraso da réplica em segundos")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("isperp.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("1 se as leituras estão indo para a réplica")
+                .register(meterRegistry);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${isperp.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean wasAvailable = available;
+        try {
+            List<Map<String, Object>> status = replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS");
+            if (status.isEmpty()) {
+                lagSeconds = requireReplicationStatus ? -1 : 0;
+                available = !requireReplicationStatus;
+            } else {
+                // Nulo quando a thread de replicação está parada
+                Object lag = status.get(0).get("Seconds_Behind_Source");
+                lagSeconds = lag == null ? -1 : ((Number) lag).longValue();
+                available = lag != null && lagSeconds <= maxLagSeconds;
+            }
+        } catch (RuntimeException e) {
+            lagSeconds = -1;
+            available = false;
+            if (wasAvailable) {
+                log.warn("Falha ao consultar a réplica: {}", e.getMessage());
+            }
+        }
+
+        if (wasAvailable != available) {
+            log.warn(available ? "Réplica em dia, leituras voltam para a réplica (atraso {} s)"
+                    : "Réplica indisponível ou atrasada, leituras vão para o primário (atraso {} s)", lagSeconds);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.xingubit.isperp.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Envia as transações @Transactional(readOnly = true) para a réplica e todo o resto
+ * para o primário. Enquanto a réplica estiver atrasada ou fora do ar, as leituras
+ * também vão para o primário.
+ * Precisa estar atrás de um LazyConnectionDataSourceProxy: a conexão só pode ser
+ * escolhida depois que o gerenciador de transações marcou a transação como somente leitura.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final BooleanSupplier replicaAvailable;
+
+    public ReplicaRoutingDataSource(BooleanSupplier replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaAvailable.getAsBoolean()) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+}
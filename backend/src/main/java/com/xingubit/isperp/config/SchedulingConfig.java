@@ -0,0 +1,12 @@
+package com.xingubit.isperp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Executores do @Async/@Scheduled vêm do Spring Boot (virtual threads quando habilitadas)
+@Configuration
+@EnableScheduling
+@EnableAsync
+public class SchedulingConfig {
+}
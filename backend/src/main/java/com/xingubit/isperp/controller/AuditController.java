@@ -0,0 +1,36 @@
+package com.xingubit.isperp.controller;
+
+import com.xingubit.isperp.dto.AuditEventPage;
+import com.xingubit.isperp.service.AuditTrail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    /**
+     * Trilha de auditoria da empresa, do mais recente para o mais antigo.
+     * Eventos recentes podem levar alguns instantes para aparecer: a gravação é em lote.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AuditEventPage> getAuditEvents(@RequestParam(required = false) String entityType,
+                                                         @RequestParam(required = false) Long entityId,
+                                                         @RequestParam(required = false) String actor,
+                                                         @RequestParam(required = false) Long before,
+                                                         @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(auditTrail.search(entityType, entityId, actor, before, size));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.xingubit.isperp.controller;
 
 import com.xingubit.isperp.dto.LoginRequest;
 import com.xingubit.isperp.dto.LoginResponse;
+import com.xingubit.isperp.exception.ForbiddenException;
+import com.xingubit.isperp.exception.TooManyRequestsException;
 import com.xingubit.isperp.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -20,14 +25,31 @@ public class AuthController {
     private final AuthService authService;
     
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        log.info("Tentativa de login para usuário: {}", request.getUsername());
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request,
+                                               HttpServletRequest httpRequest) {
+        log.debug("Tentativa de login para usuário: {}", request.getUsername());
         
         try {
-            LoginResponse response = authService.authenticate(request);
+            LoginResponse response = authService.authenticate(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (TooManyRequestsException e) {
+            log.warn("Login recusado por limite de concorrência: {}", e.getMessage());
+            LoginResponse errorResponse = LoginResponse.builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build();
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(errorResponse);
+        } catch (ForbiddenException e) {
+            log.warn("Login recusado: {}", e.getMessage());
+            LoginResponse errorResponse = LoginResponse.builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build();
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
         } catch (RuntimeException e) {
-            log.error("Erro durante o login: {}", e.getMessage());
+            log.warn("Login recusado: {}", e.getMessage());
             LoginResponse errorResponse = LoginResponse.builder()
                     .success(false)
                     .message("Credenciais inválidas")
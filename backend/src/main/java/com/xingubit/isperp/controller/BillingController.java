@@ -0,0 +1,111 @@
+package com.xingubit.isperp.controller;
+
+import com.xingubit.isperp.dto.BillingRunReport;
+import com.xingubit.isperp.dto.BillingRunRequest;
+import com.xingubit.isperp.dto.CnabReturnReport;
+import com.xingubit.isperp.service.BillingRunService;
+import com.xingubit.isperp.service.CnabReturnService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@Slf4j
+@RequestMapping("/api/billing")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class BillingController {
+
+    @Autowired
+    private BillingRunService billingRunService;
+
+    @Autowired
+    private CnabReturnService cnabReturnService;
+
+    /**
+     * Inicia o faturamento do período. Responde 202 assim que as faixas são planejadas;
+     * o andamento é acompanhado em GET /runs/{id}.
+     */
+    @PostMapping("/runs")
+    public ResponseEntity<?> startBillingRun(@Valid @RequestBody BillingRunRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingRunService.start(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        }
+    }
+
+    /**
+     * Progresso da execução e vazão em faturas por segundo
+     */
+    @GetMapping("/runs/{id}")
+    public ResponseEntity<BillingRunReport> getBillingRun(@PathVariable Long id) {
+        try {
+            return billingRunService.getReport(id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Retoma uma execução que falhou ou foi interrompida, a partir das faixas pendentes
+     */
+    @PostMapping("/runs/{id}/resume")
+    public ResponseEntity<?> resumeBillingRun(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingRunService.resume(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Concilia um arquivo de retorno CNAB 240/400, baixando as faturas pagas
+     */
+    @PostMapping(value = "/returns", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> reconcileReturnFile(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Arquivo vazio");
+        }
+        Path temp = null;
+        try {
+            // O parser mapeia o arquivo em memória: o upload precisa estar em disco
+            temp = Files.createTempFile("cnab-return-", ".ret");
+            file.transferTo(temp);
+            CnabReturnReport report = cnabReturnService.reconcile(temp);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Não foi possível remover o arquivo temporário {}", temp);
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,29 @@
 package com.xingubit.isperp.controller;
 
+import com.xingubit.isperp.dto.CustomerBulkRequest;
+import com.xingubit.isperp.dto.CustomerBulkResult;
+import com.xingubit.isperp.dto.CustomerImportReport;
+import com.xingubit.isperp.dto.CustomerPage;
+import com.xingubit.isperp.dto.CustomerSummary;
 import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.exception.CursorExpiredException;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import com.xingubit.isperp.service.CustomerChangeService;
+import com.xingubit.isperp.service.CustomerExportService;
+import com.xingubit.isperp.service.CustomerImportService;
 import com.xingubit.isperp.service.CustomerService;
+import com.xingubit.isperp.util.EntityTags;
+import com.xingubit.isperp.util.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -19,31 +37,108 @@ public class CustomerController {
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private CustomerExportService customerExportService;
+
+    @Autowired
+    private CustomerImportService customerImportService;
+
+    @Autowired
+    private CustomerChangeService customerChangeService;
+
+    private static final String ETAG_TYPE = "customer";
+
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
+    public ResponseEntity<List<CustomerSummary>> getAllCustomers(WebRequest webRequest) {
         try {
-            List<Customer> customers = customerService.getAllCustomers();
-            return ResponseEntity.ok(customers);
+            if (EntityTags.notModified(webRequest, "customers", TenantContext.requireCompanyId(),
+                    customerService.getCustomersFingerprint())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.AUTHORIZATION).build();
+            }
+            List<CustomerSummary> customers = customerService.getAllCustomers();
+            return ResponseEntity.ok().varyBy(HttpHeaders.AUTHORIZATION).body(customers);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Customer>> getActiveCustomers() {
+    public ResponseEntity<List<CustomerSummary>> getActiveCustomers(WebRequest webRequest) {
         try {
-            List<Customer> customers = customerService.getActiveCustomers();
-            return ResponseEntity.ok(customers);
+            if (EntityTags.notModified(webRequest, "customers-active", TenantContext.requireCompanyId(),
+                    customerService.getActiveCustomersFingerprint())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.AUTHORIZATION).build();
+            }
+            List<CustomerSummary> customers = customerService.getActiveCustomers();
+            return ResponseEntity.ok().varyBy(HttpHeaders.AUTHORIZATION).body(customers);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getCustomersPage(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size,
+                                              @RequestParam(defaultValue = "id") String sort,
+                                              @RequestParam(required = false) Boolean active,
+                                              @RequestParam(required = false) String city,
+                                              @RequestParam(required = false) String state) {
+        if (!"id".equals(sort) && !"name".equals(sort)) {
+            return ResponseEntity.badRequest().body("Ordenação inválida, use 'id' ou 'name'");
+        }
+        try {
+            CustomerPage page = customerService.getCustomersPage(cursor, size, "name".equals(sort),
+                    active, city, state);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Feed incremental: alterações desde o cursor, inclusive exclusões (type DELETED)
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getCustomerChanges(@RequestParam(required = false) Long since,
+                                                @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(customerChangeService.getChanges(since, limit));
+        } catch (CursorExpiredException e) {
+            return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<?> exportCustomers(@RequestParam(defaultValue = "csv") String format,
+                                             @RequestParam(required = false) Boolean active) {
+        CustomerExportService.Format exportFormat;
+        try {
+            exportFormat = CustomerExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Formato inválido, use 'csv' ou 'ndjson'");
+        }
+
+        // O corpo é escrito em outra thread: a empresa é lida aqui, ainda na thread da requisição
+        Long companyId = TenantContext.requireCompanyId();
+        StreamingResponseBody body = out -> customerExportService.export(out, companyId, exportFormat, active);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clientes." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Customer> getCustomerById(@PathVariable Long id) {
         try {
             Optional<Customer> customer = customerService.getCustomerById(id);
-            return customer.map(ResponseEntity::ok)
+            return customer.map(this::tagged)
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -54,17 +149,28 @@ public class CustomerController {
     public ResponseEntity<Customer> getCustomerByCpf(@PathVariable String cpf) {
         try {
             Optional<Customer> customer = customerService.getCustomerByCpf(cpf);
-            return customer.map(ResponseEntity::ok)
+            return customer.map(this::tagged)
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<CustomerSummary>> searchCustomers(@RequestParam String q,
+                                                          @RequestParam(required = false) Integer limit) {
+        try {
+            List<CustomerSummary> customers = customerService.searchCustomers(q, limit);
+            return ResponseEntity.ok(customers);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/search/name")
-    public ResponseEntity<List<Customer>> searchCustomersByName(@RequestParam String name) {
+    public ResponseEntity<List<CustomerSummary>> searchCustomersByName(@RequestParam String name) {
         try {
-            List<Customer> customers = customerService.searchCustomersByName(name);
+            List<CustomerSummary> customers = customerService.searchCustomersByName(name);
             return ResponseEntity.ok(customers);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -72,9 +178,9 @@ public class CustomerController {
     }
 
     @GetMapping("/search/cpf")
-    public ResponseEntity<List<Customer>> searchCustomersByCpf(@RequestParam String cpf) {
+    public ResponseEntity<List<CustomerSummary>> searchCustomersByCpf(@RequestParam String cpf) {
         try {
-            List<Customer> customers = customerService.searchCustomersByCpf(cpf);
+            List<CustomerSummary> customers = customerService.searchCustomersByCpf(cpf);
             return ResponseEntity.ok(customers);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -94,12 +200,35 @@ public class CustomerController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importCustomers(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Arquivo vazio");
+        }
+        try {
+            CustomerImportReport report = customerImportService.importCsv(file.getInputStream());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateCustomer(@PathVariable Long id, 
-                                          @Valid @RequestBody Customer customerDetails) {
+                                          @Valid @RequestBody Customer customerDetails,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Customer updatedCustomer = customerService.updateCustomer(id, customerDetails);
-            return ResponseEntity.ok(updatedCustomer);
+            Long expectedVersion = EntityTags.parseVersion(ifMatch, ETAG_TYPE, id);
+            Customer updatedCustomer = customerService.updateCustomer(id, customerDetails, expectedVersion);
+            return tagged(updatedCustomer);
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("O registro foi alterado por outra requisição");
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -121,11 +250,59 @@ public class CustomerController {
         }
     }
 
+    @PatchMapping("/bulk/deactivate")
+    public ResponseEntity<?> bulkDeactivateCustomers(@RequestBody CustomerBulkRequest request) {
+        try {
+            CustomerBulkResult result = customerService.bulkSetActive(request, false);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        }
+    }
+
+    @PatchMapping("/bulk/activate")
+    public ResponseEntity<?> bulkActivateCustomers(@RequestBody CustomerBulkRequest request) {
+        try {
+            CustomerBulkResult result = customerService.bulkSetActive(request, true);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        }
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<?> bulkDeleteCustomers(@RequestBody CustomerBulkRequest request) {
+        try {
+            CustomerBulkResult result = customerService.bulkDelete(request);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno do servidor");
+        }
+    }
+
     @PatchMapping("/{id}/deactivate")
-    public ResponseEntity<?> deactivateCustomer(@PathVariable Long id) {
+    public ResponseEntity<?> deactivateCustomer(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            customerService.deactivateCustomer(id);
-            return ResponseEntity.ok().body("Cliente desativado com sucesso");
+            Long expectedVersion = EntityTags.parseVersion(ifMatch, ETAG_TYPE, id);
+            Customer customer = customerService.deactivateCustomer(id, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of(ETAG_TYPE, customer.getId(), customer.getVersion()))
+                    .body("Cliente desativado com sucesso");
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("O registro foi alterado por outra requisição");
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -135,10 +312,19 @@ public class CustomerController {
     }
 
     @PatchMapping("/{id}/activate")
-    public ResponseEntity<?> activateCustomer(@PathVariable Long id) {
+    public ResponseEntity<?> activateCustomer(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            customerService.activateCustomer(id);
-            return ResponseEntity.ok().body("Cliente ativado com sucesso");
+            Long expectedVersion = EntityTags.parseVersion(ifMatch, ETAG_TYPE, id);
+            Customer customer = customerService.activateCustomer(id, expectedVersion);
+            return ResponseEntity.ok()
+                    .eTag(EntityTags.of(ETAG_TYPE, customer.getId(), customer.getVersion()))
+                    .body("Cliente ativado com sucesso");
+        } catch (PreconditionFailedException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("O registro foi alterado por outra requisição");
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -146,4 +332,9 @@ public class CustomerController {
                     .body("Erro interno do servidor");
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<Customer> tagged(Customer customer) {
+        return EntityTags.ok(ETAG_TYPE, customer.getId(), customer.getVersion(), customer.getUpdatedAt())
+                .body(customer);
+    }
+}
@@ -26,11 +26,7 @@ public class InitialSetupController {
     @PostMapping
     public ResponseEntity<Map<String, Object>> performInitialSetup(@Valid @RequestBody InitialSetupRequest request) {
         try {
-            if (initialSetupService.isSetupCompleted()) {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("success", false, "message", "Setup já foi realizado anteriormente"));
-            }
-
+            // performSetup já verifica se o setup foi realizado
             initialSetupService.performSetup(request);
             
             return ResponseEntity.ok(Map.of(
@@ -38,6 +34,9 @@ public class InitialSetupController {
                 "isSetupCompleted", true,
                 "message", "Setup realizado com sucesso!"
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("success", false, "message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                 .body(Map.of("success", false, "message", "Erro durante o setup: " + e.getMessage()));
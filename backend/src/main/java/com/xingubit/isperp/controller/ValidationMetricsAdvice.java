@@ -0,0 +1,28 @@
+package com.xingubit.isperp.controller;
+
+import com.xingubit.isperp.service.BusinessErrorMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Conta os erros de negócio que o Bean Validation barra antes de chegar ao service
+ * (ex.: CPF inválido no corpo de POST/PUT /customers). Só registra a métrica: a exceção é
+ * relançada e a resposta 400 continua sendo a padrão do Spring.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ValidationMetricsAdvice {
+
+    private final BusinessErrorMetrics businessErrorMetrics;
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public void countValidationErrors(MethodArgumentNotValidException e) throws MethodArgumentNotValidException {
+        // Um CPF em branco falha em mais de uma regra; conta uma vez por requisição
+        if (e.getBindingResult().getFieldErrors().stream().anyMatch(error -> "cpf".equals(error.getField()))) {
+            businessErrorMetrics.invalidCpf();
+        }
+        throw e;
+    }
+}
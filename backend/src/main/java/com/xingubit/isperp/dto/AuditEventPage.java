@@ -0,0 +1,22 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.entity.AuditEvent;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Página da trilha de auditoria, do evento mais recente para o mais antigo
+ */
+@Data
+@Builder
+public class AuditEventPage {
+
+    private List<AuditEvent> items;
+    private int size;
+    private boolean hasMore;
+
+    // Valor a ser enviado no parâmetro "before" para obter a próxima página
+    private Long nextCursor;
+}
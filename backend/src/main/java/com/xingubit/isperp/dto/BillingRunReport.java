@@ -0,0 +1,26 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.entity.BillingRun;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progresso e vazão de uma execução de faturamento
+ */
+@Data
+@Builder
+public class BillingRunReport {
+
+    private Long id;
+    private String period;
+    private BillingRun.Status status;
+    private int totalChunks;
+    private int completedChunks;
+    private long invoicesCreated;
+    private long elapsedMillis;
+    private double invoicesPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,28 @@
+package com.xingubit.isperp.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class BillingRunRequest {
+
+    @NotBlank(message = "Período é obrigatório")
+    @Pattern(regexp = "\\d{4}-\\d{2}", message = "Período deve estar no formato yyyy-MM")
+    private String period;
+
+    @NotNull(message = "Valor é obrigatório")
+    @DecimalMin(value = "0.01", message = "Valor deve ser positivo")
+    private BigDecimal amount;
+
+    // Dia de vencimento dentro do período (padrão: 10)
+    @Min(value = 1, message = "Dia de vencimento inválido")
+    @Max(value = 28, message = "Dia de vencimento deve ser no máximo 28")
+    private Integer dueDay;
+}
@@ -0,0 +1,42 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.util.CnabReturnParser;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado da conciliação de um arquivo de retorno CNAB
+ */
+@Data
+@Builder
+public class CnabReturnReport {
+
+    private CnabReturnParser.Layout layout;
+    private int totalLines;
+    private int payments;
+    private int settled;
+    private BigDecimal settledAmount;
+    private int unmatched;
+    private int duplicates;
+    // Fatura encontrada, mas com valor pago menor ou CPF do pagador diferente do cliente
+    private int rejected;
+    private int malformedLines;
+    private long elapsedMillis;
+    private double linesPerSecond;
+    // Pagamentos não baixados (sem fatura, em duplicidade ou recusados), limitados aos primeiros registros
+    private List<RecordIssue> issues;
+
+    @Data
+    @AllArgsConstructor
+    public static class RecordIssue {
+        private int line;
+        private long reference;
+        private String cpf;
+        private BigDecimal amount;
+        private String message;
+    }
+}
@@ -0,0 +1,18 @@
+package com.xingubit.isperp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumo agregado de uma tabela, usado para gerar o ETag de listagens
+ * sem carregar as linhas: qualquer inclusão, alteração ou exclusão muda ao menos um campo.
+ */
+public record CollectionFingerprint(Long count, Long maxId, LocalDateTime lastModified, Long versionSum) {
+
+    /**
+     * Listagem versionada por um contador que cresce a cada alteração, em vez de agregados
+     * sobre a tabela inteira
+     */
+    public static CollectionFingerprint ofVersion(Long version, LocalDateTime lastModified) {
+        return new CollectionFingerprint(null, version, lastModified, null);
+    }
+}
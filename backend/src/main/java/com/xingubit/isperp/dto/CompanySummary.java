@@ -0,0 +1,10 @@
+package com.xingubit.isperp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Empresa resumida para listagens
+ */
+public record CompanySummary(Long id, String name, String document, String email, String phone,
+                             LocalDateTime createdAt) {
+}
@@ -0,0 +1,18 @@
+package com.xingubit.isperp.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Seleção de clientes para operações em lote: lista de ids ou filtro por cidade/estado
+ */
+@Data
+public class CustomerBulkRequest {
+
+    private List<Long> ids;
+
+    private String city;
+
+    private String state;
+}
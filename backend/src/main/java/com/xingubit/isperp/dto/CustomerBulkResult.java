@@ -0,0 +1,20 @@
+package com.xingubit.isperp.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Resultado de uma operação em lote sobre clientes
+ */
+@Data
+@Builder
+public class CustomerBulkResult {
+
+    // Ids distintos enviados, ou clientes encontrados pelo filtro
+    private long matched;
+
+    // Clientes efetivamente alterados (os que já estavam no estado pedido não contam)
+    private long affected;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,31 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.entity.CustomerChange;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página do feed de alterações de clientes, em ordem de registro
+ */
+@Data
+@Builder
+public class CustomerChangeFeed {
+
+    /**
+     * Alteração de um cliente. customer traz o estado atual no momento da leitura
+     * e vem nulo em exclusões (ou se o cliente foi excluído depois da alteração).
+     */
+    public record Change(Long changeId, Long customerId, CustomerChange.ChangeType type, Long version,
+                         LocalDateTime changedAt, CustomerSummary customer) {
+    }
+
+    private List<Change> items;
+    private int size;
+    private boolean hasMore;
+
+    // Valor a ser enviado no parâmetro "since" na próxima leitura (igual ao recebido se não houve alterações)
+    private long nextCursor;
+}
@@ -0,0 +1,31 @@
+package com.xingubit.isperp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Resultado da importação em lote de clientes
+ */
+@Data
+@Builder
+public class CustomerImportReport {
+
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<RowError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        // Linha do arquivo (o cabeçalho é a linha 1)
+        private int line;
+        private String cpf;
+        private String message;
+    }
+}
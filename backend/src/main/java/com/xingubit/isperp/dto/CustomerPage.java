@@ -0,0 +1,21 @@
+package com.xingubit.isperp.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Página de clientes obtida por paginação keyset (cursor)
+ */
+@Data
+@Builder
+public class CustomerPage {
+
+    private List<CustomerSummary> items;
+    private int size;
+    private boolean hasMore;
+
+    // Token opaco a ser enviado no parâmetro "cursor" para obter a próxima página
+    private String nextCursor;
+}
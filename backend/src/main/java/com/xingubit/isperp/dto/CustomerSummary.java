@@ -0,0 +1,9 @@
+package com.xingubit.isperp.dto;
+
+/**
+ * Cliente resumido para listagens e buscas, montado direto na consulta (sem entidade gerenciada).
+ * O cadastro completo fica em GET /customers/{id}.
+ */
+public record CustomerSummary(Long id, String name, String cpf, String email, String phone,
+                              String city, String state, Boolean active) {
+}
@@ -0,0 +1,12 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.entity.Invoice;
+
+import java.math.BigDecimal;
+
+/**
+ * Fatura candidata a receber um pagamento do arquivo de retorno, com o CPF do cliente
+ * (null se o cliente foi excluído)
+ */
+public record InvoiceMatch(Long id, Long customerId, String cpf, BigDecimal amount, Invoice.Status status) {
+}
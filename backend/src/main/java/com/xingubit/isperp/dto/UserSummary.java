@@ -0,0 +1,12 @@
+package com.xingubit.isperp.dto;
+
+import com.xingubit.isperp.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Usuário resumido para listagens, sem o hash da senha
+ */
+public record UserSummary(Long id, String name, String email, User.UserRole role, Boolean active,
+                          LocalDateTime createdAt, Long companyId) {
+}
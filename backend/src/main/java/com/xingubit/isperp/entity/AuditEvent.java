@@ -0,0 +1,53 @@
+package com.xingubit.isperp.entity;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Evento da trilha de auditoria, somente leitura: a gravação é feita em lote pelo AuditTrail
+ */
+@Entity
+@Table(name = "audit_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Email do usuário autenticado, ou "system" para tarefas internas
+    @Column(name = "actor", nullable = false)
+    private String actor;
+
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Column(name = "request_id", length = 64)
+    private String requestId;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "action", nullable = false, length = 32)
+    private String action;
+
+    // Objeto JSON campo -> [antes, depois], ou campo -> valor quando só o novo valor é conhecido
+    @JsonRawValue
+    @Column(name = "changes", columnDefinition = "json")
+    private String changes;
+}
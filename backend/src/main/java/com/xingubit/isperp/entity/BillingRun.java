@@ -0,0 +1,77 @@
+package com.xingubit.isperp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Execução do faturamento mensal de uma empresa. Os contadores são atualizados
+ * a cada faixa concluída, na mesma transação que grava as faturas da faixa.
+ */
+@Entity
+@Table(name = "billing_runs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillingRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    // Mês de referência no formato yyyy-MM
+    @Column(name = "period", nullable = false, length = 7)
+    private String period;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    // VARCHAR em V10, não ENUM nativo (que é o que o Hibernate 6 espera por padrão no MySQL)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "total_chunks", nullable = false)
+    private int totalChunks;
+
+    @Column(name = "completed_chunks", nullable = false)
+    private int completedChunks;
+
+    @Column(name = "invoices_created", nullable = false)
+    private long invoicesCreated;
+
+    // Tempo de processamento somado de todas as tentativas
+    @Column(name = "elapsed_millis", nullable = false)
+    private long elapsedMillis;
+
+    // Início da tentativa atual
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    // Renovado a cada faixa concluída; uma execução RUNNING sem sinal recente pode ser retomada
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+}
@@ -47,6 +47,11 @@ public class Company {
     @Column(name = "website")
     private String website;
     
+    // Controle de concorrência otimista e base do ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
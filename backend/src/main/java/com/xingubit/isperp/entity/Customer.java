@@ -11,6 +11,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.Pattern;
 import com.xingubit.isperp.validation.ValidCpf;
+import org.hibernate.annotations.PartitionKey;
 import java.time.LocalDateTime;
 
 @Entity
@@ -21,9 +22,18 @@ import java.time.LocalDateTime;
 @Builder
 public class Customer {
     
+    // Ids reservados em blocos na tabela id_generators, para que os inserts possam ir em batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "customer_id")
+    @TableGenerator(name = "customer_id", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "customers", allocationSize = 100)
     private Long id;
+
+    // Empresa (marca) dona do cadastro e coluna de partição da tabela. Definida pelo
+    // serviço a partir do TenantContext; o Hibernate a inclui no WHERE de UPDATE/DELETE
+    @PartitionKey
+    @Column(name = "company_id", nullable = false, updatable = false)
+    private Long companyId;
     
     @NotBlank(message = "Nome é obrigatório")
     @Size(max = 255, message = "Nome deve ter no máximo 255 caracteres")
@@ -32,12 +42,12 @@ public class Customer {
     
     @NotBlank(message = "CPF é obrigatório")
     @ValidCpf(message = "CPF inválido")
-    @Column(name = "cpf", nullable = false, unique = true, length = 14)
+    @Column(name = "cpf", nullable = false, length = 14)
     private String cpf;
     
     @Email(message = "Email deve ter formato válido")
     @Size(max = 255, message = "Email deve ter no máximo 255 caracteres")
-    @Column(name = "email", unique = true)
+    @Column(name = "email")
     private String email;
     
     @Size(max = 20, message = "Telefone deve ter no máximo 20 caracteres")
@@ -64,6 +74,11 @@ public class Customer {
     @Column(name = "active", nullable = false)
     private Boolean active = true;
     
+    // Controle de concorrência otimista e base do ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,51 @@
+package com.xingubit.isperp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+/**
+ * Registro do outbox de alterações de clientes. As linhas são inseridas pelo
+ * CustomerChangeRepository na mesma transação que altera o cliente.
+ */
+@Entity
+@Table(name = "customer_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    // A coluna é VARCHAR: sem o tipo explícito, o Hibernate 6 espera ENUM nativo na validação
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private ChangeType changeType;
+
+    // Versão do cliente após a alteração (a última versão, no caso de exclusão)
+    @Column(name = "customer_version")
+    private Long customerVersion;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,67 @@
+package com.xingubit.isperp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Fatura mensal de um cliente. Criada em lote pelo BillingRunService e baixada
+ * pela conciliação dos arquivos de retorno CNAB.
+ */
+@Entity
+@Table(name = "invoices")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Invoice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "period", nullable = false, length = 7)
+    private String period;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    // VARCHAR em V10, não ENUM nativo (que é o que o Hibernate 6 espera por padrão no MySQL)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "paid_amount", precision = 10, scale = 2)
+    private BigDecimal paidAmount;
+
+    @Column(name = "paid_at")
+    private LocalDate paidAt;
+
+    @Column(name = "billing_run_id")
+    private Long billingRunId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        OPEN, PAID
+    }
+}
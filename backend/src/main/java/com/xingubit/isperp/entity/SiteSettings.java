@@ -39,6 +39,11 @@ public class SiteSettings {
     @Column(name = "secondary_color")
     private String secondaryColor = "#dc004e";
     
+    // Controle de concorrência otimista e base do ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -1,5 +1,6 @@
 package com.xingubit.isperp.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -22,6 +23,10 @@ public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    // Empresa (marca) do usuário; vai para o token e delimita os clientes visíveis
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
     
     @NotBlank(message = "Nome é obrigatório")
     @Size(max = 255, message = "Nome deve ter no máximo 255 caracteres")
@@ -37,6 +42,7 @@ public class User {
     @NotBlank(message = "Senha é obrigatória")
     @Size(min = 6, message = "Senha deve ter no mínimo 6 caracteres")
     @Column(name = "password", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     
     @Enumerated(EnumType.STRING)
@@ -46,6 +52,11 @@ public class User {
     @Column(name = "active", nullable = false)
     private Boolean active = true;
     
+    // Controle de concorrência otimista e base do ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,12 @@
+package com.xingubit.isperp.exception;
+
+/**
+ * Lançada quando o cursor do feed de alterações aponta para registros já expurgados (HTTP 410).
+ * O consumidor precisa refazer a carga completa e recomeçar do cursor atual.
+ */
+public class CursorExpiredException extends RuntimeException {
+
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.xingubit.isperp.exception;
+
+/**
+ * Lançada quando o usuário é conhecido mas não pode acessar o sistema (HTTP 403)
+ */
+public class ForbiddenException extends RuntimeException {
+
+    public ForbiddenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.xingubit.isperp.exception;
+
+/**
+ * Lançada quando o If-Match da requisição não confere com a versão atual (HTTP 412)
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
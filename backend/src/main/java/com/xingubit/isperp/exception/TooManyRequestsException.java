@@ -0,0 +1,11 @@
+package com.xingubit.isperp.exception;
+
+/**
+ * Lançada quando a requisição é recusada por limite de concorrência (HTTP 429)
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
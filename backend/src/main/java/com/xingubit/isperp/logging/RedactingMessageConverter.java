@@ -0,0 +1,51 @@
+package com.xingubit.isperp.logging;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.regex.Pattern;
+
+/**
+ * Variante do %msg que mascara credenciais antes de gravar o log: valores de
+ * password/senha/secret/token (em "chave=valor", "chave: valor" ou JSON) e tokens Bearer.
+ * Uso no padrão: %redactedMsg
+ */
+public class RedactingMessageConverter extends MessageConverter {
+
+    private static final String MASK = "****";
+
+    private static final Pattern KEY_VALUE = Pattern.compile(
+            "(?i)(password|senha|secret|token)(\"?\\s*[:=]\\s*\"?)([^\"',\\s)}&]+)");
+
+    private static final Pattern BEARER = Pattern.compile("(?i)(bearer\\s+)[A-Za-z0-9._~+/=-]+");
+
+    private static final String[] KEYWORDS = {"password", "senha", "secret", "token", "bearer"};
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return redact(super.convert(event));
+    }
+
+    static String redact(String message) {
+        if (message == null || !mayContainCredentials(message)) {
+            return message;
+        }
+        String redacted = KEY_VALUE.matcher(message).replaceAll("$1$2" + MASK);
+        return BEARER.matcher(redacted).replaceAll("$1" + MASK);
+    }
+
+    // Caminho rápido: a grande maioria das mensagens não tem nenhuma das palavras-chave.
+    // Compara no lugar, sem criar uma cópia em minúsculas de cada mensagem
+    private static boolean mayContainCredentials(String message) {
+        int length = message.length();
+        for (int i = 0; i < length; i++) {
+            char first = Character.toLowerCase(message.charAt(i));
+            for (String keyword : KEYWORDS) {
+                if (keyword.charAt(0) == first && message.regionMatches(true, i, keyword, 0, keyword.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
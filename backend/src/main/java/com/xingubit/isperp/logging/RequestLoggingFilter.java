@@ -0,0 +1,66 @@
+package com.xingubit.isperp.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Preenche o MDC de cada requisição: "requestId" para correlacionar as linhas de log
+ * e "sqlTrace" quando a requisição foi escolhida para ter o SQL registrado, seja por
+ * amostragem ou pelo cabeçalho X-Debug-Sql.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String SQL_TRACE_HEADER = "X-Debug-Sql";
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+    // Fração das requisições com SQL registrado (0 desliga, 1 registra todas)
+    @Value("${isperp.logging.sql-trace.sample-rate:0}")
+    private double sampleRate;
+
+    // Permite ao cliente pedir o trace pelo cabeçalho; desligado em produção
+    @Value("${isperp.logging.sql-trace.header-enabled:true}")
+    private boolean headerEnabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isBlank() || requestId.length() > 64) {
+            requestId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        if (shouldTraceSql(request)) {
+            MDC.put(SqlTraceTurboFilter.MDC_KEY, "true");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID_MDC_KEY);
+            MDC.remove(SqlTraceTurboFilter.MDC_KEY);
+        }
+    }
+
+    private boolean shouldTraceSql(HttpServletRequest request) {
+        if (headerEnabled && "true".equalsIgnoreCase(request.getHeader(SQL_TRACE_HEADER))) {
+            return true;
+        }
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,29 @@
+package com.xingubit.isperp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Libera o log de SQL do Hibernate apenas nas requisições marcadas para trace
+ * (MDC "sqlTrace", preenchido pelo {@link RequestLoggingFilter}), sem ligar o
+ * logger org.hibernate.SQL para todo o tráfego.
+ */
+public class SqlTraceTurboFilter extends TurboFilter {
+
+    public static final String MDC_KEY = "sqlTrace";
+
+    private static final String SQL_LOGGER = "org.hibernate.SQL";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+        if (level != Level.DEBUG || !SQL_LOGGER.equals(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return MDC.get(MDC_KEY) != null ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xingubit.isperp.repository;
+
+import com.xingubit.isperp.entity.AuditEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long> {
+
+    // Paginação keyset do mais recente para o mais antigo
+    @Query("SELECT a FROM AuditEvent a WHERE a.companyId = :companyId AND a.id < :beforeId " +
+           "AND (:entityType IS NULL OR a.entityType = :entityType) " +
+           "AND (:entityId IS NULL OR a.entityId = :entityId) " +
+           "AND (:actor IS NULL OR a.actor = :actor) " +
+           "ORDER BY a.id DESC")
+    List<AuditEvent> findPage(@Param("companyId") Long companyId,
+                              @Param("beforeId") long beforeId,
+                              @Param("entityType") String entityType,
+                              @Param("entityId") Long entityId,
+                              @Param("actor") String actor,
+                              Pageable limit);
+}
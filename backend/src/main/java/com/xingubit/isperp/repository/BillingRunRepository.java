@@ -0,0 +1,46 @@
+package com.xingubit.isperp.repository;
+
+import com.xingubit.isperp.entity.BillingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BillingRunRepository extends JpaRepository<BillingRun, Long> {
+
+    Optional<BillingRun> findByIdAndCompanyId(Long id, Long companyId);
+
+    // Assume a execução para retomada: só se falhou ou se quem a executava parou de dar sinal
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BillingRun r SET r.status = com.xingubit.isperp.entity.BillingRun$Status.RUNNING, " +
+           "r.startedAt = :now, r.heartbeatAt = :now, r.finishedAt = null " +
+           "WHERE r.id = :id AND r.companyId = :companyId " +
+           "AND r.status <> com.xingubit.isperp.entity.BillingRun$Status.COMPLETED " +
+           "AND (r.status <> com.xingubit.isperp.entity.BillingRun$Status.RUNNING OR r.heartbeatAt < :staleBefore)")
+    int claimForResume(@Param("id") Long id,
+                       @Param("companyId") Long companyId,
+                       @Param("now") LocalDateTime now,
+                       @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Chamado na transação de cada faixa
+    @Modifying
+    @Query("UPDATE BillingRun r SET r.completedChunks = r.completedChunks + 1, " +
+           "r.invoicesCreated = r.invoicesCreated + :invoices, r.heartbeatAt = :now WHERE r.id = :id")
+    int chunkCompleted(@Param("id") Long id, @Param("invoices") long invoices, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BillingRun r SET r.status = :status, r.finishedAt = :now, " +
+           "r.elapsedMillis = r.elapsedMillis + :elapsedMillis WHERE r.id = :id")
+    int finish(@Param("id") Long id,
+               @Param("status") BillingRun.Status status,
+               @Param("elapsedMillis") long elapsedMillis,
+               @Param("now") LocalDateTime now);
+}
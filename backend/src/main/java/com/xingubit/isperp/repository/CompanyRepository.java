@@ -1,13 +1,25 @@
 package com.xingubit.isperp.repository;
 
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.dto.CompanySummary;
 import com.xingubit.isperp.entity.Company;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CompanyRepository extends JpaRepository<Company, Long> {
     
     Optional<Company> findFirstByOrderByIdAsc();
-}
\ No newline at end of file
+
+    @Query("SELECT new com.xingubit.isperp.dto.CompanySummary(c.id, c.name, c.document, c.email, c.phone, c.createdAt) " +
+           "FROM Company c ORDER BY c.id ASC")
+    List<CompanySummary> findAllSummaries();
+
+    @Query("SELECT new com.xingubit.isperp.dto.CollectionFingerprint(COUNT(c), MAX(c.id), MAX(c.updatedAt), " +
+           "COALESCE(SUM(c.version), 0)) FROM Company c")
+    CollectionFingerprint fingerprint();
+}
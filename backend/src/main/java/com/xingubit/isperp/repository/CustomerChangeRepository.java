@@ -0,0 +1,70 @@
+package com.xingubit.isperp.repository;
+
+import com.xingubit.isperp.entity.CustomerChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerChangeRepository extends JpaRepository<CustomerChange, Long> {
+
+    // Um INSERT ... SELECT por operação, com a versão lida da própria linha do cliente.
+    // changed_at é o relógio do banco no próprio INSERT (não o da aplicação, tomado antes do
+    // trabalho): é com ele que o feed decide o que já pode ser entregue.
+    // MANDATORY: o registro só faz sentido na transação que alterou os clientes.
+    // Em exclusões deve ser chamado antes do DELETE, enquanto as linhas ainda existem.
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "INSERT INTO customer_changes " +
+                   "(company_id, customer_id, change_type, customer_version, changed_at) " +
+                   "SELECT c.company_id, c.id, :changeType, c.version, NOW(3) FROM customers c " +
+                   "WHERE c.company_id = :companyId AND c.id IN :ids",
+           nativeQuery = true)
+    int recordChanges(@Param("companyId") Long companyId,
+                      @Param("ids") Collection<Long> ids,
+                      @Param("changeType") String changeType);
+
+    @Query("SELECT c FROM CustomerChange c WHERE c.companyId = :companyId AND c.id > :afterId " +
+           "AND c.changedAt <= :visibleUntil ORDER BY c.id ASC")
+    List<CustomerChange> findPage(@Param("companyId") Long companyId,
+                                  @Param("afterId") long afterId,
+                                  @Param("visibleUntil") LocalDateTime visibleUntil,
+                                  Pageable limit);
+
+    // Última alteração da empresa: uma leitura no fim do índice (company_id, id)
+    @Query("SELECT c FROM CustomerChange c WHERE c.companyId = :companyId ORDER BY c.id DESC")
+    List<CustomerChange> findLatest(@Param("companyId") Long companyId, Pageable limit);
+
+    // Mesmo relógio usado em changed_at
+    @Query(value = "SELECT NOW(3)", nativeQuery = true)
+    LocalDateTime currentDatabaseTime();
+
+    // Maior id já expurgado da empresa (null se nada foi expurgado)
+    @Query(value = "SELECT max_purged_id FROM customer_change_purges WHERE company_id = :companyId",
+           nativeQuery = true)
+    Long findPurgedUpTo(@Param("companyId") Long companyId);
+
+    // Chamado antes do expurgo: guarda, por empresa, até que id os registros serão removidos
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO customer_change_purges (company_id, max_purged_id) " +
+                   "SELECT company_id, MAX(id) FROM customer_changes WHERE changed_at < :cutoff GROUP BY company_id " +
+                   "ON DUPLICATE KEY UPDATE max_purged_id = GREATEST(max_purged_id, VALUES(max_purged_id))",
+           nativeQuery = true)
+    int recordPurgeWatermarks(@Param("cutoff") LocalDateTime cutoff);
+
+    // Expurgo em blocos, para não segurar locks da tabela inteira
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM customer_changes WHERE changed_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
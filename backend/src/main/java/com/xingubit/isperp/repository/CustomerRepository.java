@@ -1,26 +1,175 @@
 package com.xingubit.isperp.repository;
 
+import com.xingubit.isperp.dto.CustomerSummary;
 import com.xingubit.isperp.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    // Todas as consultas filtram por companyId: com a tabela particionada por empresa,
+    // o MySQL lê apenas a partição da empresa da requisição
+
+    Optional<Customer> findByIdAndCompanyId(Long id, Long companyId);
+
+    boolean existsByIdAndCompanyId(Long id, Long companyId);
+
+    Optional<Customer> findByCompanyIdAndCpf(Long companyId, String cpf);
     
-    Optional<Customer> findByCpf(String cpf);
-    
-    Optional<Customer> findByEmail(String email);
-    
-    boolean existsByCpf(String cpf);
-    
-    boolean existsByEmail(String email);
-    
-    List<Customer> findByActiveTrue();
-    
-    List<Customer> findByNameContainingIgnoreCase(String name);
-    
-    List<Customer> findByCpfContaining(String cpf);
-}
\ No newline at end of file
+    Optional<Customer> findByCompanyIdAndEmail(Long companyId, String email);
+
+    // Projeções para listagens: só as colunas exibidas, sem entidades no contexto de persistência
+    String SUMMARY_SELECT = "SELECT new com.xingubit.isperp.dto.CustomerSummary(" +
+            "c.id, c.name, c.cpf, c.email, c.phone, c.city, c.state, c.active) FROM Customer c ";
+
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId ORDER BY c.id ASC")
+    List<CustomerSummary> findAllSummaries(@Param("companyId") Long companyId);
+
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId AND c.active = true ORDER BY c.id ASC")
+    List<CustomerSummary> findActiveSummaries(@Param("companyId") Long companyId);
+
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId AND c.id IN :ids")
+    List<CustomerSummary> findSummariesByIdIn(@Param("companyId") Long companyId,
+                                              @Param("ids") Collection<Long> ids);
+
+    // name e cpf chegam com %, _ e \ escapados (CustomerService.escapeLike): são buscados literalmente
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId " +
+           "AND LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%')) ESCAPE '\\' ORDER BY c.id ASC")
+    List<CustomerSummary> findSummariesByNameContaining(@Param("companyId") Long companyId,
+                                                        @Param("name") String name, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId " +
+           "AND c.cpf LIKE CONCAT('%', :cpf, '%') ESCAPE '\\' ORDER BY c.id ASC")
+    List<CustomerSummary> findSummariesByCpfContaining(@Param("companyId") Long companyId,
+                                                       @Param("cpf") String cpf, Pageable limit);
+
+    // Atualização em um único UPDATE: a unicidade de CPF/email fica a cargo das chaves
+    // únicas e a versão só é conferida quando informada (If-Match)
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Customer c SET c.name = :name, c.cpf = :cpf, c.email = :email, c.phone = :phone, " +
+           "c.address = :address, c.city = :city, c.state = :state, c.zipCode = :zipCode, " +
+           "c.active = :active, c.updatedAt = :updatedAt, c.version = c.version + 1 " +
+           "WHERE c.companyId = :companyId AND c.id = :id " +
+           "AND (:expectedVersion IS NULL OR c.version = :expectedVersion)")
+    int updateFields(@Param("companyId") Long companyId,
+                     @Param("id") Long id,
+                     @Param("expectedVersion") Long expectedVersion,
+                     @Param("name") String name,
+                     @Param("cpf") String cpf,
+                     @Param("email") String email,
+                     @Param("phone") String phone,
+                     @Param("address") String address,
+                     @Param("city") String city,
+                     @Param("state") String state,
+                     @Param("zipCode") String zipCode,
+                     @Param("active") Boolean active,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Operações em lote: um único statement por bloco de ids, sem carregar as entidades
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Customer c SET c.active = :active, c.updatedAt = :updatedAt, c.version = c.version + 1 " +
+           "WHERE c.companyId = :companyId AND c.id IN :ids AND c.active <> :active")
+    int updateActiveByIds(@Param("companyId") Long companyId,
+                          @Param("ids") Collection<Long> ids,
+                          @Param("active") boolean active,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Customer c WHERE c.companyId = :companyId AND c.id IN :ids")
+    int deleteByIds(@Param("companyId") Long companyId, @Param("ids") Collection<Long> ids);
+
+    // Percorre por keyset os ids que casam com o filtro, para atualizar em blocos
+    @Query("SELECT c.id FROM Customer c WHERE c.companyId = :companyId AND c.id > :afterId " +
+           "AND (:city IS NULL OR c.city = :city) " +
+           "AND (:state IS NULL OR c.state = :state) " +
+           "ORDER BY c.id ASC")
+    List<Long> findIdsByFilter(@Param("companyId") Long companyId,
+                               @Param("afterId") long afterId,
+                               @Param("city") String city,
+                               @Param("state") String state,
+                               Pageable limit);
+
+    @Query("SELECT c.cpf FROM Customer c WHERE c.companyId = :companyId AND c.cpf IN :cpfs")
+    Set<String> findExistingCpfs(@Param("companyId") Long companyId, @Param("cpfs") Collection<String> cpfs);
+
+    @Query("SELECT c.email FROM Customer c WHERE c.companyId = :companyId AND c.email IN :emails")
+    Set<String> findExistingEmails(@Param("companyId") Long companyId, @Param("emails") Collection<String> emails);
+
+    // Paginação keyset: os filtros nulos viram constantes no SQL enviado pelo driver
+    // e são descartados pelo otimizador, mantendo o uso de PRIMARY / idx_customers_active
+    @Query(SUMMARY_SELECT + "WHERE c.companyId = :companyId AND c.id > :afterId " +
+           "AND (:active IS NULL OR c.active = :active) " +
+           "AND (:city IS NULL OR c.city = :city) " +
+           "AND (:state IS NULL OR c.state = :state) " +
+           "ORDER BY c.id ASC")
+    List<CustomerSummary> findPageOrderById(@Param("companyId") Long companyId,
+                                     @Param("afterId") long afterId,
+                                     @Param("active") Boolean active,
+                                     @Param("city") String city,
+                                     @Param("state") String state,
+                                     Pageable limit);
+
+    // Ordenação por (name, id) percorre idx_customers_name, que já carrega o id como sufixo
+    @Query(SUMMARY_SELECT +
+           "WHERE c.companyId = :companyId " +
+           "AND (c.name > :afterName OR (c.name = :afterName AND c.id > :afterId)) " +
+           "AND (:active IS NULL OR c.active = :active) " +
+           "AND (:city IS NULL OR c.city = :city) " +
+           "AND (:state IS NULL OR c.state = :state) " +
+           "ORDER BY c.name ASC, c.id ASC")
+    List<CustomerSummary> findPageOrderByName(@Param("companyId") Long companyId,
+                                       @Param("afterName") String afterName,
+                                       @Param("afterId") long afterId,
+                                       @Param("active") Boolean active,
+                                       @Param("city") String city,
+                                       @Param("state") String state,
+                                       Pageable limit);
+
+    // Fetch size Integer.MIN_VALUE faz o Connector/J ler o resultado linha a linha
+    // (cursor forward-only), em vez de carregar todo o result set em memória.
+    // Deve ser consumido dentro de uma transação e fechado ao final.
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Customer c WHERE c.companyId = :companyId " +
+           "AND (:active IS NULL OR c.active = :active) ORDER BY c.id ASC")
+    Stream<Customer> streamAll(@Param("companyId") Long companyId, @Param("active") Boolean active);
+
+    // Divide os clientes ativos da empresa em faixas de id com até chunkSize clientes cada.
+    // Cada linha é {primeiro id, último id}; novos clientes ficam fora das faixas já planejadas.
+    @Query(value = "SELECT MIN(r.id), MAX(r.id) FROM (" +
+                   "SELECT c.id, FLOOR((ROW_NUMBER() OVER (ORDER BY c.id) - 1) / :chunkSize) AS chunk_no " +
+                   "FROM customers c WHERE c.company_id = :companyId AND c.active = TRUE) r " +
+                   "GROUP BY r.chunk_no ORDER BY r.chunk_no", nativeQuery = true)
+    List<Object[]> findActiveIdRanges(@Param("companyId") Long companyId, @Param("chunkSize") int chunkSize);
+
+    // Única leitura sem filtro de empresa: carga do índice de busca, que guarda a empresa de cada cliente
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Customer c")
+    Stream<Customer> streamAllCompanies();
+}
@@ -0,0 +1,27 @@
+package com.xingubit.isperp.repository;
+
+import com.xingubit.isperp.dto.InvoiceMatch;
+import com.xingubit.isperp.entity.Invoice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+
+    String MATCH_SELECT = "SELECT new com.xingubit.isperp.dto.InvoiceMatch(i.id, i.customerId, c.cpf, i.amount, i.status) ";
+
+    @Query(MATCH_SELECT + "FROM Invoice i LEFT JOIN Customer c ON c.companyId = i.companyId AND c.id = i.customerId " +
+           "WHERE i.companyId = :companyId AND i.id IN :ids")
+    List<InvoiceMatch> findMatchesByIdIn(@Param("companyId") Long companyId, @Param("ids") Collection<Long> ids);
+
+    // Faturas em aberto dos clientes, da mais antiga para a mais recente
+    @Query(MATCH_SELECT + "FROM Customer c JOIN Invoice i ON i.companyId = c.companyId AND i.customerId = c.id " +
+           "WHERE c.companyId = :companyId AND c.cpf IN :cpfs " +
+           "AND i.status = com.xingubit.isperp.entity.Invoice$Status.OPEN ORDER BY i.dueDate ASC, i.id ASC")
+    List<InvoiceMatch> findOpenMatchesByCpfIn(@Param("companyId") Long companyId, @Param("cpfs") Collection<String> cpfs);
+}
@@ -1,9 +1,14 @@
 package com.xingubit.isperp.repository;
 
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.dto.UserSummary;
 import com.xingubit.isperp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +19,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     
     long countByRole(User.UserRole role);
-}
\ No newline at end of file
+
+    // Listagem sem a senha e sem entidades gerenciadas
+    @Query("SELECT new com.xingubit.isperp.dto.UserSummary(u.id, u.name, u.email, u.role, u.active, u.createdAt, " +
+           "u.companyId) " +
+           "FROM User u ORDER BY u.id ASC")
+    List<UserSummary> findAllSummaries();
+
+    // Usado pelo PrincipalCache na autorização de cada requisição
+    @Query("SELECT new com.xingubit.isperp.dto.UserSummary(u.id, u.name, u.email, u.role, u.active, u.createdAt, " +
+           "u.companyId) " +
+           "FROM User u WHERE u.email = :email")
+    Optional<UserSummary> findSummaryByEmail(@Param("email") String email);
+
+    @Query("SELECT new com.xingubit.isperp.dto.CollectionFingerprint(COUNT(u), MAX(u.id), MAX(u.updatedAt), " +
+           "COALESCE(SUM(u.version), 0)) FROM User u")
+    CollectionFingerprint fingerprint();
+}
@@ -0,0 +1,528 @@
+package com.xingubit.isperp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xingubit.isperp.dto.AuditEventPage;
+import com.xingubit.isperp.entity.AuditEvent;
+import com.xingubit.isperp.logging.RequestLoggingFilter;
+import com.xingubit.isperp.repository.AuditEventRepository;
+import com.xingubit.isperp.util.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trilha de auditoria das alterações de clientes, usuários, empresas e configurações.
+ * Os serviços apenas enfileiram o evento (após o commit, quando há transação) em um buffer
+ * limitado em memória; uma thread dedicada o esvazia gravando em lote no banco.
+ * Com o banco lento ou fora, os eventos vão para um arquivo local (NDJSON, com fsync),
+ * reenviado ao banco em fatias entre os lotes normais quando ele volta a responder.
+ * Com o buffer cheio, o evento passa para uma fila de transbordo esvaziada no arquivo por
+ * outra thread: a requisição nunca faz E/S de disco.
+ * A entrega é "pelo menos uma vez": uma queda entre o INSERT de uma fatia reenviada e a
+ * gravação da posição no arquivo pode duplicar essa fatia.
+ */
+@Service
+@Slf4j
+public class AuditTrail {
+
+    // Tipos de entidade auditados (mesmos nomes usados nos ETags)
+    public static final String CUSTOMER = "customer";
+    public static final String USER = "user";
+    public static final String COMPANY = "company";
+    public static final String SITE_SETTINGS = "site_settings";
+    public static final String BILLING_RUN = "billing_run";
+    public static final String INVOICE = "invoice";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public enum Action {
+        CREATE, UPDATE, DELETE, ACTIVATE, DEACTIVATE, BULK_ACTIVATE, BULK_DEACTIVATE, BULK_DELETE, IMPORT
+    }
+
+    /**
+     * Campos alterados de um evento: [antes, depois] para diferenças, ou só o valor
+     * quando o estado anterior não é conhecido (criações, UPDATE direto no banco)
+     */
+    public static final class Changes {
+
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        public Changes diff(String field, Object before, Object after) {
+            if (!Objects.equals(before, after)) {
+                values.put(field, Arrays.asList(before, after));
+            }
+            return this;
+        }
+
+        public Changes set(String field, Object value) {
+            values.put(field, value);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+    }
+
+    public static Changes changes() {
+        return new Changes();
+    }
+
+    private record PendingEvent(long occurredAt, String actor, Long companyId, String requestId,
+                                String entityType, Long entityId, Action action, Map<String, Object> changes) {
+    }
+
+    // Linha de audit_events, no formato já serializado; também é o formato do arquivo de contingência
+    record AuditRow(long occurredAt, String actor, Long companyId, String requestId,
+                    String entityType, Long entityId, String action, String changes) {
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO audit_events " +
+            "(occurred_at, actor, company_id, request_id, entity_type, entity_id, action, changes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SYSTEM_ACTOR = "system";
+    private static final String SPILL_FILE = "audit-spill.ndjson";
+    private static final String REPLAY_FILE = "audit-spill.replay.ndjson";
+    // Posição, em bytes, até onde o arquivo de reenvio já foi gravado no banco
+    private static final String REPLAY_OFFSET_FILE = "audit-spill.replay.offset";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditEventRepository auditEventRepository;
+    private final BlockingQueue<PendingEvent> buffer;
+    private final BlockingQueue<PendingEvent> overflow;
+    private final int highWaterMark;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long slowBatchMillis;
+    private final long retryAfterMillis;
+    private final Path spillDir;
+
+    private final Counter written;
+    private final Counter spilled;
+    private final Counter replayed;
+    private final Counter overflowed;
+    private final Counter lost;
+
+    private final Object spillLock = new Object();
+    private FileChannel spillChannel;
+
+    private volatile boolean running;
+    private Thread writer;
+    private Thread spiller;
+
+    // Há arquivo de contingência a reenviar (verdadeiro na partida: pode haver sobra da execução anterior)
+    private volatile boolean replayPending = true;
+
+    // Acessados só pela thread de gravação: até quando o banco é evitado após falha ou
+    // lentidão, e a posição do reenvio (-1 enquanto não lida do arquivo de posição)
+    private long databaseRetryAt;
+    private long replayOffset = -1;
+
+    public AuditTrail(JdbcTemplate jdbcTemplate,
+                      ObjectMapper objectMapper,
+                      AuditEventRepository auditEventRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${isperp.audit.buffer-size:8192}") int bufferSize,
+                      @Value("${isperp.audit.batch-size:500}") int batchSize,
+                      @Value("${isperp.audit.flush-interval-ms:200}") long flushIntervalMillis,
+                      @Value("${isperp.audit.slow-batch-ms:2000}") long slowBatchMillis,
+                      @Value("${isperp.audit.retry-after-ms:30000}") long retryAfterMillis,
+                      @Value("${isperp.audit.spill-dir:audit-spill}") String spillDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.auditEventRepository = auditEventRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.overflow = new ArrayBlockingQueue<>(bufferSize);
+        this.highWaterMark = bufferSize * 3 / 4;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.slowBatchMillis = slowBatchMillis;
+        this.retryAfterMillis = retryAfterMillis;
+        this.spillDir = Paths.get(spillDir);
+
+        Gauge.builder("isperp.audit.buffer.size", buffer, BlockingQueue::size)
+                .description("Eventos de auditoria aguardando gravação")
+                .register(meterRegistry);
+        Gauge.builder("isperp.audit.overflow.size", overflow, BlockingQueue::size)
+                .description("Eventos de auditoria aguardando o arquivo de contingência")
+                .register(meterRegistry);
+        this.written = events(meterRegistry, "written");
+        this.spilled = events(meterRegistry, "spilled");
+        this.replayed = events(meterRegistry, "replayed");
+        this.overflowed = events(meterRegistry, "overflowed");
+        this.lost = events(meterRegistry, "lost");
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("isperp.audit.events")
+                .description("Eventos de auditoria por destino")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::drainLoop);
+        spiller = Thread.ofPlatform().name("audit-spill").daemon().start(this::overflowLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // As threads esvaziam o que restou no buffer e no transbordo antes de sair
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        spiller.join(TimeUnit.SECONDS.toMillis(10));
+        synchronized (spillLock) {
+            closeSpill();
+        }
+    }
+
+    /**
+     * Registra uma alteração. Não acessa o banco: o evento entra no buffer após o commit
+     * da transação atual (ou imediatamente, fora de transação) e é gravado em segundo plano.
+     * Ator, empresa e requestId são lidos aqui, na thread da requisição.
+     */
+    public void record(String entityType, Long entityId, Action action, Changes changes) {
+        PendingEvent event = new PendingEvent(System.currentTimeMillis(), currentActor(),
+                TenantContext.getCompanyId(), MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY),
+                entityType, entityId, action, changes == null ? Map.of() : changes.values);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    /**
+     * Lista eventos da empresa da requisição, do mais recente para o mais antigo
+     * @param before nextCursor da página anterior (null para a primeira página)
+     * @param size tamanho da página, limitado a {@link #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public AuditEventPage search(String entityType, Long entityId, String actor, Long before, Integer size) {
+        Long companyId = TenantContext.requireCompanyId();
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long beforeId = before == null ? Long.MAX_VALUE : before;
+        String typeFilter = entityType == null || entityType.isBlank() ? null : entityType.trim();
+        String actorFilter = actor == null || actor.isBlank() ? null : actor.trim();
+
+        List<AuditEvent> rows = auditEventRepository.findPage(companyId, beforeId, typeFilter, entityId,
+                actorFilter, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<AuditEvent> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return AuditEventPage.builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .build();
+    }
+
+    private static String currentActor() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || auth.getName() == null ? SYSTEM_ACTOR : auth.getName();
+    }
+
+    private void enqueue(PendingEvent event) {
+        if (buffer.offer(event)) {
+            return;
+        }
+        // Buffer cheio: a thread de transbordo grava no arquivo (e faz o fsync) fora da requisição
+        overflowed.increment();
+        if (!overflow.offer(event)) {
+            lost.increment();
+            log.error("Buffer e transbordo da auditoria cheios, evento descartado: {} {} {}",
+                    event.entityType(), event.entityId(), event.action());
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                // Com reenvio pendente não espera: uma fatia do arquivo a cada volta, entre os lotes normais
+                boolean replaying = replayPending && System.currentTimeMillis() >= databaseRetryAt;
+                PendingEvent first = buffer.poll(replaying ? 0 : flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                    write(toRows(batch));
+                }
+                // O lote acima pode ter falhado e adiado o banco
+                if (replaying && System.currentTimeMillis() >= databaseRetryAt && buffer.size() <= highWaterMark) {
+                    replaySlice();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro na gravação da trilha de auditoria", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Leva o transbordo da requisição para o arquivo de contingência
+    private void overflowLoop() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !overflow.isEmpty()) {
+            try {
+                PendingEvent first = overflow.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                overflow.drainTo(batch, batchSize - 1);
+                spill(toRows(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Erro na gravação do transbordo da auditoria", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private List<AuditRow> toRows(List<PendingEvent> batch) {
+        List<AuditRow> rows = new ArrayList<>(batch.size());
+        for (PendingEvent event : batch) {
+            rows.add(toRow(event));
+        }
+        return rows;
+    }
+
+    private void write(List<AuditRow> rows) {
+        long start = System.currentTimeMillis();
+        // Banco indisponível ou buffer se acumulando: o arquivo absorve o lote
+        if (start < databaseRetryAt || buffer.size() > highWaterMark) {
+            spill(rows);
+            return;
+        }
+
+        try {
+            insert(rows);
+            written.increment(rows.size());
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar {} eventos de auditoria, desviando para o arquivo: {}",
+                    rows.size(), e.getMessage());
+            databaseRetryAt = System.currentTimeMillis() + retryAfterMillis;
+            spill(rows);
+            return;
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        if (elapsed > slowBatchMillis) {
+            log.warn("Gravação da auditoria lenta ({} ms), usando o arquivo pelos próximos {} ms",
+                    elapsed, retryAfterMillis);
+            databaseRetryAt = System.currentTimeMillis() + retryAfterMillis;
+        }
+    }
+
+    private void insert(List<AuditRow> rows) {
+        // Com rewriteBatchedStatements, o lote vira um único INSERT de várias linhas
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setTimestamp(1, new Timestamp(row.occurredAt()));
+            ps.setString(2, row.actor());
+            ps.setObject(3, row.companyId(), Types.BIGINT);
+            ps.setString(4, row.requestId());
+            ps.setString(5, row.entityType());
+            ps.setObject(6, row.entityId(), Types.BIGINT);
+            ps.setString(7, row.action());
+            ps.setString(8, row.changes());
+        });
+    }
+
+    private AuditRow toRow(PendingEvent event) {
+        String changes = null;
+        if (!event.changes().isEmpty()) {
+            try {
+                changes = objectMapper.writeValueAsString(event.changes());
+            } catch (JsonProcessingException e) {
+                log.warn("Alterações do evento de auditoria não serializáveis: {}", e.getMessage());
+            }
+        }
+        return new AuditRow(event.occurredAt(), event.actor(), event.companyId(), event.requestId(),
+                event.entityType(), event.entityId(), event.action().name(), changes);
+    }
+
+    private void spill(List<AuditRow> rows) {
+        try {
+            StringBuilder lines = new StringBuilder(rows.size() * 256);
+            for (AuditRow row : rows) {
+                lines.append(objectMapper.writeValueAsString(row)).append('\n');
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            synchronized (spillLock) {
+                if (spillChannel == null) {
+                    Files.createDirectories(spillDir);
+                    spillChannel = FileChannel.open(spillDir.resolve(SPILL_FILE),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                while (bytes.hasRemaining()) {
+                    spillChannel.write(bytes);
+                }
+                spillChannel.force(false);
+            }
+            spilled.increment(rows.size());
+            replayPending = true;
+        } catch (IOException e) {
+            lost.increment(rows.size());
+            log.error("Falha ao gravar {} eventos de auditoria no arquivo de contingência", rows.size(), e);
+        }
+    }
+
+    /**
+     * Reenvia ao banco uma fatia (até batch-size eventos) do arquivo de contingência, a partir
+     * da posição gravada em {@link #REPLAY_OFFSET_FILE}. O arquivo é renomeado antes da leitura,
+     * para que novos desvios sigam para um arquivo novo; a posição só avança depois do INSERT,
+     * então uma falha repete apenas a fatia que não entrou.
+     */
+    private void replaySlice() {
+        Path replay = spillDir.resolve(REPLAY_FILE);
+        Path offsetFile = spillDir.resolve(REPLAY_OFFSET_FILE);
+        try {
+            if (!Files.exists(replay)) {
+                synchronized (spillLock) {
+                    Path spill = spillDir.resolve(SPILL_FILE);
+                    if (!Files.exists(spill)) {
+                        replayPending = false;
+                        return;
+                    }
+                    closeSpill();
+                    Files.move(spill, replay, StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.deleteIfExists(offsetFile);
+                replayOffset = 0;
+            }
+            if (replayOffset < 0) {
+                replayOffset = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : 0;
+            }
+
+            List<AuditRow> rows = new ArrayList<>(batchSize);
+            long position = replayOffset;
+            boolean endOfFile = false;
+            try (FileChannel channel = FileChannel.open(replay, StandardOpenOption.READ)) {
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(replayOffset)));
+                ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+                long read = replayOffset;
+                while (rows.size() < batchSize) {
+                    int b = in.read();
+                    if (b != -1) {
+                        read++;
+                        if (b != '\n') {
+                            line.write(b);
+                            continue;
+                        }
+                    } else {
+                        endOfFile = true;
+                    }
+                    position = read;
+                    if (line.size() > 0) {
+                        parseReplayLine(line.toString(StandardCharsets.UTF_8), rows);
+                        line.reset();
+                    }
+                    if (endOfFile) {
+                        break;
+                    }
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                insert(rows);
+                replayed.increment(rows.size());
+            }
+            if (endOfFile) {
+                Files.delete(replay);
+                Files.deleteIfExists(offsetFile);
+                replayOffset = -1;
+                log.info("Arquivo de contingência da auditoria reenviado ao banco");
+            } else {
+                Files.write(offsetFile, Long.toString(position).getBytes(StandardCharsets.US_ASCII),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DSYNC);
+                replayOffset = position;
+            }
+        } catch (IOException | NumberFormatException | DataAccessException e) {
+            log.warn("Falha ao reenviar a auditoria do arquivo, nova tentativa em {} ms: {}",
+                    retryAfterMillis, e.getMessage());
+            databaseRetryAt = System.currentTimeMillis() + retryAfterMillis;
+        }
+    }
+
+    private void parseReplayLine(String line, List<AuditRow> rows) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            rows.add(objectMapper.readValue(line, AuditRow.class));
+        } catch (JsonProcessingException e) {
+            // Linha truncada por uma queda durante a escrita
+            lost.increment();
+            log.warn("Linha inválida no arquivo de auditoria ignorada: {}", e.getOriginalMessage());
+        }
+    }
+
+    private void closeSpill() {
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar o arquivo de auditoria: {}", e.getMessage());
+            }
+            spillChannel = null;
+        }
+    }
+}
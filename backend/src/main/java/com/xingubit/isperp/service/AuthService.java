@@ -1,42 +1,110 @@
 package com.xingubit.isperp.service;
 
+import com.xingubit.isperp.config.LoginExecutorConfig;
+import com.xingubit.isperp.config.MetricsConfig;
 import com.xingubit.isperp.dto.LoginRequest;
 import com.xingubit.isperp.dto.LoginResponse;
 import com.xingubit.isperp.entity.User;
+import com.xingubit.isperp.exception.ForbiddenException;
+import com.xingubit.isperp.exception.TooManyRequestsException;
 import com.xingubit.isperp.repository.UserRepository;
 import com.xingubit.isperp.util.JwtUtil;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class AuthService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final LoginAdmissionService loginAdmissionService;
+    private final BusinessErrorMetrics businessErrorMetrics;
+    private final ExecutorService loginHashExecutor;
+    private final Timer hashTimer;
+    private final Timer queueTimer;
+
+    @Value("${isperp.login.hash-timeout-ms:5000}")
+    private long hashTimeoutMillis;
+
+    public AuthService(UserRepository userRepository,
+                       PasswordEncoder passwordEncoder,
+                       JwtUtil jwtUtil,
+                       LoginAdmissionService loginAdmissionService,
+                       BusinessErrorMetrics businessErrorMetrics,
+                       @Qualifier(LoginExecutorConfig.LOGIN_HASH_EXECUTOR) ExecutorService loginHashExecutor,
+                       MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.loginAdmissionService = loginAdmissionService;
+        this.businessErrorMetrics = businessErrorMetrics;
+        this.loginHashExecutor = loginHashExecutor;
+        this.hashTimer = Timer.builder("isperp.login.hash.duration")
+                .description("Tempo de verificação BCrypt")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("isperp.login.hash.queue")
+                .description("Tempo de espera na fila do executor de hash")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
     
     public LoginResponse authenticate(LoginRequest request) {
-        log.info("Autenticando usuário: {}", request.getUsername());
+        return authenticate(request, null);
+    }
+
+    public LoginResponse authenticate(LoginRequest request, String clientIp) {
+        try (LoginAdmissionService.Permit permit = loginAdmissionService.acquire(request.getUsername(), clientIp)) {
+            return doAuthenticate(request);
+        }
+    }
+
+    private LoginResponse doAuthenticate(LoginRequest request) {
+        log.debug("Autenticando usuário: {}", request.getUsername());
         
         // Buscar por email (que é o username no nosso caso)
         User user = userRepository.findByEmail(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
-        
-        log.info("Usuário encontrado: {}, senha no banco: {}", user.getEmail(), user.getPassword());
-        log.info("Senha fornecida: {}", request.getPassword());
+                .orElseThrow(() -> {
+                    businessErrorMetrics.unknownUser();
+                    return new RuntimeException("Usuário não encontrado");
+                });
         
-        boolean passwordMatches = passwordEncoder.matches(request.getPassword(), user.getPassword());
-        log.info("Senha confere: {}", passwordMatches);
+        boolean passwordMatches = passwordMatches(request.getPassword(), user.getPassword());
         
         if (!passwordMatches) {
+            businessErrorMetrics.badPassword();
             throw new RuntimeException("Senha inválida");
         }
+
+        // Mesma regra do JwtAuthenticationFilter: usuário desativado não recebe token
+        if (!Boolean.TRUE.equals(user.getActive())) {
+            businessErrorMetrics.inactiveUser();
+            throw new RuntimeException("Usuário inativo");
+        }
+
+        // Sem empresa o token não teria tenant e toda requisição falharia depois do login
+        if (user.getCompanyId() == null) {
+            businessErrorMetrics.noCompany();
+            throw new ForbiddenException("Usuário sem empresa vinculada");
+        }
         
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().toString());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().toString(), user.getCompanyId());
         
         return LoginResponse.builder()
                 .success(true)
@@ -46,4 +114,32 @@ public class AuthService {
                 .role(user.getRole().toString())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Executa o BCrypt no executor dedicado, fora da thread da requisição
+     */
+    private boolean passwordMatches(String rawPassword, String encodedPassword) {
+        long submittedAt = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = loginHashExecutor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            });
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Servidor ocupado processando logins, tente novamente em instantes");
+        }
+
+        try {
+            return result.get(hashTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new TooManyRequestsException("Servidor ocupado processando logins, tente novamente em instantes");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Login interrompido");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erro ao verificar senha", e.getCause());
+        }
+    }
+}
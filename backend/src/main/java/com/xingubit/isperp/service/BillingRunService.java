@@ -0,0 +1,294 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.config.BillingExecutorConfig;
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.BillingRunReport;
+import com.xingubit.isperp.dto.BillingRunRequest;
+import com.xingubit.isperp.entity.BillingRun;
+import com.xingubit.isperp.repository.BillingRunRepository;
+import com.xingubit.isperp.repository.CustomerRepository;
+import com.xingubit.isperp.util.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Faturamento mensal: gera uma fatura em aberto para cada cliente ativo da empresa.
+ *
+ * A execução é planejada em faixas de id de clientes (billing_run_chunks), processadas em
+ * paralelo pelo billingExecutor. Cada faixa grava suas faturas, marca-se como DONE e
+ * atualiza os contadores da execução em uma única transação: se o processo cair, a
+ * retomada reprocessa apenas as faixas que não chegaram a DONE. A chave única
+ * (empresa, cliente, período) das faturas impede cobrança em dobro em qualquer caso.
+ */
+@Service
+@Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class BillingRunService {
+
+    public static final int DEFAULT_DUE_DAY = 10;
+
+    // Cria as faturas da faixa que ainda não existem; o NOT EXISTS mantém a contagem exata
+    // ao reprocessar uma faixa, e a chave única cobre qualquer corrida restante
+    private static final String INSERT_INVOICES =
+            "INSERT INTO invoices (company_id, customer_id, period, amount, due_date, status, billing_run_id, created_at) " +
+            "SELECT c.company_id, c.id, ?, ?, ?, 'OPEN', ?, ? FROM customers c " +
+            "WHERE c.company_id = ? AND c.active = TRUE AND c.id BETWEEN ? AND ? " +
+            "AND NOT EXISTS (SELECT 1 FROM invoices i " +
+            "WHERE i.company_id = c.company_id AND i.customer_id = c.id AND i.period = ?)";
+
+    private static final String INSERT_CHUNK =
+            "INSERT INTO billing_run_chunks (run_id, chunk_no, first_id, last_id, status) VALUES (?, ?, ?, ?, 'PENDING')";
+
+    private static final String SELECT_PENDING_CHUNKS =
+            "SELECT chunk_no, first_id, last_id FROM billing_run_chunks " +
+            "WHERE run_id = ? AND status <> 'DONE' ORDER BY chunk_no";
+
+    private static final String MARK_CHUNK_DONE =
+            "UPDATE billing_run_chunks SET status = 'DONE', invoices_created = ?, completed_at = ? " +
+            "WHERE run_id = ? AND chunk_no = ? AND status <> 'DONE'";
+
+    record Chunk(int chunkNo, long firstId, long lastId) {
+    }
+
+    @Autowired
+    private BillingRunRepository billingRunRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier(BillingExecutorConfig.BILLING_EXECUTOR)
+    private ExecutorService billingExecutor;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Value("${isperp.billing.chunk-size:1000}")
+    private int chunkSize;
+
+    // Sem renovação do heartbeat por esse tempo, uma execução RUNNING é considerada abandonada
+    @Value("${isperp.billing.lease-ms:300000}")
+    private long leaseMillis;
+
+    // Transação de cada faixa. Em READ COMMITTED o INSERT ... SELECT lê os clientes sem
+    // bloqueá-los, e a faixa não trava a edição de cadastros enquanto é faturada.
+    private TransactionTemplate chunkTransaction;
+
+    // Execuções em andamento nesta instância
+    private final Set<Long> activeRuns = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Planeja e inicia o faturamento do período para a empresa do usuário.
+     * O processamento continua em segundo plano; o progresso é consultado em {@link #getReport(Long)}.
+     * @throws IllegalArgumentException se o período for inválido
+     * @throws IllegalStateException se o período já tiver uma execução (use a retomada)
+     */
+    public BillingRunReport start(BillingRunRequest request) {
+        Long companyId = TenantContext.requireCompanyId();
+        YearMonth period = parsePeriod(request.getPeriod());
+        int dueDay = request.getDueDay() == null ? DEFAULT_DUE_DAY : request.getDueDay();
+        LocalDateTime now = LocalDateTime.now();
+
+        BillingRun run;
+        try {
+            run = transactionTemplate.execute(status -> {
+                BillingRun created = billingRunRepository.save(BillingRun.builder()
+                        .companyId(companyId)
+                        .period(period.toString())
+                        .amount(request.getAmount())
+                        .dueDate(period.atDay(dueDay))
+                        .status(BillingRun.Status.RUNNING)
+                        .startedAt(now)
+                        .heartbeatAt(now)
+                        .build());
+
+                List<Chunk> chunks = planChunks(companyId);
+                jdbcTemplate.batchUpdate(INSERT_CHUNK, chunks, 1000, (ps, chunk) -> {
+                    ps.setLong(1, created.getId());
+                    ps.setInt(2, chunk.chunkNo());
+                    ps.setLong(3, chunk.firstId());
+                    ps.setLong(4, chunk.lastId());
+                });
+                created.setTotalChunks(chunks.size());
+
+                auditTrail.record(AuditTrail.BILLING_RUN, created.getId(), AuditTrail.Action.CREATE,
+                        AuditTrail.changes()
+                                .set("period", created.getPeriod())
+                                .set("amount", created.getAmount())
+                                .set("chunks", chunks.size()));
+                return created;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Já existe faturamento para o período " + period);
+        }
+
+        execute(run);
+        return toReport(run);
+    }
+
+    /**
+     * Retoma uma execução que falhou ou foi interrompida, processando apenas as faixas pendentes
+     * @throws IllegalStateException se a execução estiver concluída ou ainda em andamento
+     */
+    public BillingRunReport resume(Long id) {
+        Long companyId = TenantContext.requireCompanyId();
+        BillingRun run = billingRunRepository.findByIdAndCompanyId(id, companyId)
+                .orElseThrow(() -> new RuntimeException("Execução de faturamento não encontrada"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (activeRuns.contains(id)
+                || billingRunRepository.claimForResume(id, companyId, now, now.minus(Duration.ofMillis(leaseMillis))) == 0) {
+            throw new IllegalStateException(run.getStatus() == BillingRun.Status.COMPLETED
+                    ? "Faturamento já concluído"
+                    : "Faturamento em andamento");
+        }
+
+        run = billingRunRepository.findById(id).orElseThrow();
+        auditTrail.record(AuditTrail.BILLING_RUN, id, AuditTrail.Action.UPDATE,
+                AuditTrail.changes().set("status", BillingRun.Status.RUNNING));
+        execute(run);
+        return toReport(run);
+    }
+
+    public Optional<BillingRunReport> getReport(Long id) {
+        Long companyId = TenantContext.requireCompanyId();
+        return billingRunRepository.findByIdAndCompanyId(id, companyId).map(this::toReport);
+    }
+
+    private void execute(BillingRun run) {
+        Long runId = run.getId();
+        activeRuns.add(runId);
+        long startNanos = System.nanoTime();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        Throwable planningError = null;
+        try {
+            List<Chunk> pending = jdbcTemplate.query(SELECT_PENDING_CHUNKS,
+                    (rs, rowNum) -> new Chunk(rs.getInt(1), rs.getLong(2), rs.getLong(3)), runId);
+            for (Chunk chunk : pending) {
+                futures.add(CompletableFuture.runAsync(() -> processChunk(run, chunk), billingExecutor));
+            }
+        } catch (RuntimeException e) {
+            planningError = e;
+        }
+
+        // Uma faixa com erro não interrompe as demais: a execução termina FAILED
+        // depois que todas pararam, com as faixas concluídas preservadas para a retomada
+        Throwable failure = planningError;
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> finish(run, startNanos, failure != null ? failure : error));
+    }
+
+    private void processChunk(BillingRun run, Chunk chunk) {
+        chunkTransaction.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int created = jdbcTemplate.update(INSERT_INVOICES,
+                    run.getPeriod(), run.getAmount(), run.getDueDate(), run.getId(), now,
+                    run.getCompanyId(), chunk.firstId(), chunk.lastId(), run.getPeriod());
+
+            if (jdbcTemplate.update(MARK_CHUNK_DONE, created, now, run.getId(), chunk.chunkNo()) == 0) {
+                throw new IllegalStateException("Faixa " + chunk.chunkNo() + " já processada por outra execução");
+            }
+            billingRunRepository.chunkCompleted(run.getId(), created, now);
+        });
+    }
+
+    private void finish(BillingRun run, long startNanos, Throwable error) {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        BillingRun.Status status = error == null ? BillingRun.Status.COMPLETED : BillingRun.Status.FAILED;
+        try {
+            billingRunRepository.finish(run.getId(), status, elapsedMillis, LocalDateTime.now());
+            billingRunRepository.findById(run.getId()).map(this::toReport).ifPresent(report -> {
+                if (error == null) {
+                    log.info("Faturamento {} da empresa {} concluído: {} faturas em {} ms ({} faturas/s)",
+                            report.getPeriod(), run.getCompanyId(), report.getInvoicesCreated(),
+                            report.getElapsedMillis(), String.format("%.1f", report.getInvoicesPerSecond()));
+                } else {
+                    log.error("Faturamento {} da empresa {} falhou após {} de {} faixas; pode ser retomado",
+                            report.getPeriod(), run.getCompanyId(), report.getCompletedChunks(),
+                            report.getTotalChunks(), error);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Sem o registro final a execução fica RUNNING e pode ser retomada quando o lease expirar
+            log.error("Falha ao finalizar o faturamento {}", run.getId(), e);
+        } finally {
+            activeRuns.remove(run.getId());
+        }
+    }
+
+    private List<Chunk> planChunks(Long companyId) {
+        List<Object[]> ranges = customerRepository.findActiveIdRanges(companyId, Math.max(1, chunkSize));
+        List<Chunk> chunks = new ArrayList<>(ranges.size());
+        for (Object[] range : ranges) {
+            chunks.add(new Chunk(chunks.size(), ((Number) range[0]).longValue(), ((Number) range[1]).longValue()));
+        }
+        return chunks;
+    }
+
+    private YearMonth parsePeriod(String period) {
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Período deve estar no formato yyyy-MM");
+        }
+    }
+
+    private BillingRunReport toReport(BillingRun run) {
+        long elapsedMillis = run.getElapsedMillis();
+        if (run.getStatus() == BillingRun.Status.RUNNING && run.getStartedAt() != null) {
+            elapsedMillis += Math.max(0, Duration.between(run.getStartedAt(), LocalDateTime.now()).toMillis());
+        }
+        double invoicesPerSecond = elapsedMillis > 0 ? run.getInvoicesCreated() * 1000.0 / elapsedMillis : 0.0;
+
+        return BillingRunReport.builder()
+                .id(run.getId())
+                .period(run.getPeriod())
+                .status(run.getStatus())
+                .totalChunks(run.getTotalChunks())
+                .completedChunks(run.getCompletedChunks())
+                .invoicesCreated(run.getInvoicesCreated())
+                .elapsedMillis(elapsedMillis)
+                .invoicesPerSecond(invoicesPerSecond)
+                .startedAt(run.getStartedAt())
+                .finishedAt(run.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.xingubit.isperp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contadores de erros de negócio, para acompanhar separadamente de falhas técnicas.
+ * Métricas: isperp.business.errors{error} e isperp.login.failures{reason}
+ */
+@Component
+public class BusinessErrorMetrics {
+
+    private final Counter invalidCpf;
+    private final Counter duplicateCpf;
+    private final Counter duplicateEmail;
+    private final Counter unknownUser;
+    private final Counter badPassword;
+    private final Counter inactiveUser;
+    private final Counter noCompany;
+
+    public BusinessErrorMetrics(MeterRegistry meterRegistry) {
+        this.invalidCpf = businessError(meterRegistry, "invalid_cpf");
+        this.duplicateCpf = businessError(meterRegistry, "duplicate_cpf");
+        this.duplicateEmail = businessError(meterRegistry, "duplicate_email");
+        this.unknownUser = loginFailure(meterRegistry, "unknown_user");
+        this.badPassword = loginFailure(meterRegistry, "bad_password");
+        this.inactiveUser = loginFailure(meterRegistry, "inactive_user");
+        this.noCompany = loginFailure(meterRegistry, "no_company");
+    }
+
+    public void invalidCpf() {
+        invalidCpf.increment();
+    }
+
+    public void duplicateCpf() {
+        duplicateCpf.increment();
+    }
+
+    public void duplicateEmail() {
+        duplicateEmail.increment();
+    }
+
+    public void unknownUser() {
+        unknownUser.increment();
+    }
+
+    public void badPassword() {
+        badPassword.increment();
+    }
+
+    public void inactiveUser() {
+        inactiveUser.increment();
+    }
+
+    public void noCompany() {
+        noCompany.increment();
+    }
+
+    private static Counter businessError(MeterRegistry meterRegistry, String error) {
+        return Counter.builder("isperp.business.errors")
+                .description("Erros de negócio por tipo")
+                .tag("error", error)
+                .register(meterRegistry);
+    }
+
+    private static Counter loginFailure(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("isperp.login.failures")
+                .description("Logins recusados por credenciais inválidas")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
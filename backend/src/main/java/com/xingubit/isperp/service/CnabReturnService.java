@@ -0,0 +1,245 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.CnabReturnReport;
+import com.xingubit.isperp.dto.InvoiceMatch;
+import com.xingubit.isperp.entity.Invoice;
+import com.xingubit.isperp.repository.InvoiceRepository;
+import com.xingubit.isperp.util.CnabReturnParser;
+import com.xingubit.isperp.util.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conciliação dos arquivos de retorno de cobrança com as faturas em aberto.
+ * As liquidações lidas pelo {@link CnabReturnParser} são processadas em blocos: duas
+ * consultas IN por bloco (pelo id da fatura e pelo CPF do pagador) e a baixa em batch,
+ * tudo na mesma transação.
+ */
+@Service
+@Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class CnabReturnService {
+
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ISSUES = 1000;
+
+    // A condição de status torna a baixa idempotente: reenviar o mesmo arquivo não paga duas vezes
+    private static final String SETTLE_INVOICE =
+            "UPDATE invoices SET status = 'PAID', paid_amount = ?, paid_at = ? " +
+            "WHERE company_id = ? AND id = ? AND status = 'OPEN'";
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    /**
+     * Baixa as faturas pagas no arquivo de retorno. Cada liquidação é associada à fatura
+     * do "seu número" do boleto; sem ela, à fatura em aberto mais antiga do CPF do pagador
+     * com o mesmo valor. Pagamento menor que a fatura ou de CPF diferente do cliente não
+     * baixa a fatura e vai para o relatório.
+     * @param file arquivo CNAB 240 ou 400
+     * @return relatório com os pagamentos não conciliados e a vazão
+     */
+    public CnabReturnReport reconcile(Path file) throws IOException {
+        long start = System.nanoTime();
+        ReconcileState state = new ReconcileState(TenantContext.requireCompanyId());
+
+        List<CnabReturnParser.Payment> batch = new ArrayList<>(BATCH_SIZE);
+        CnabReturnParser.Result result = CnabReturnParser.parse(file, payment -> {
+            batch.add(payment);
+            if (batch.size() == BATCH_SIZE) {
+                reconcileBatch(batch, state);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            reconcileBatch(batch, state);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        log.info("Retorno {}: {} linhas, {} liquidações, {} baixadas, {} sem fatura, {} duplicadas, {} recusadas em {} ms",
+                result.layout(), result.totalLines(), result.payments(), state.settled, state.unmatched,
+                state.duplicates, state.rejected, elapsedMillis);
+
+        return CnabReturnReport.builder()
+                .layout(result.layout())
+                .totalLines(result.totalLines())
+                .payments(result.payments())
+                .settled(state.settled)
+                .settledAmount(BigDecimal.valueOf(state.settledCents, 2))
+                .unmatched(state.unmatched)
+                .duplicates(state.duplicates)
+                .rejected(state.rejected)
+                .malformedLines(result.malformedLines())
+                .elapsedMillis(elapsedMillis)
+                .linesPerSecond(result.totalLines() / seconds)
+                .issues(state.issues)
+                .build();
+    }
+
+    private void reconcileBatch(List<CnabReturnParser.Payment> batch, ReconcileState state) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> cpfs = new HashSet<>();
+        for (CnabReturnParser.Payment payment : batch) {
+            if (payment.reference() > 0) {
+                ids.add(payment.reference());
+            }
+            if (payment.payerCpf() != null) {
+                cpfs.add(payment.payerCpf());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, InvoiceMatch> byId = new HashMap<>();
+            if (!ids.isEmpty()) {
+                for (InvoiceMatch invoice : invoiceRepository.findMatchesByIdIn(state.companyId, ids)) {
+                    byId.put(invoice.id(), invoice);
+                }
+            }
+            Map<String, Deque<InvoiceMatch>> openByCpf = new HashMap<>();
+            if (!cpfs.isEmpty()) {
+                for (InvoiceMatch invoice : invoiceRepository.findOpenMatchesByCpfIn(state.companyId, cpfs)) {
+                    openByCpf.computeIfAbsent(invoice.cpf(), cpf -> new ArrayDeque<>()).add(invoice);
+                }
+            }
+
+            List<Settlement> settlements = new ArrayList<>(batch.size());
+            for (CnabReturnParser.Payment payment : batch) {
+                InvoiceMatch invoice = byId.get(payment.reference());
+                if (invoice == null && payment.payerCpf() != null) {
+                    invoice = nextOpen(openByCpf.get(payment.payerCpf()), payment.amountCents(), state);
+                }
+
+                if (invoice == null) {
+                    state.unmatched++;
+                    state.issue(payment, "Fatura não encontrada");
+                } else if (payment.payerCpf() != null && invoice.cpf() != null
+                        && !payment.payerCpf().equals(invoice.cpf())) {
+                    // O CNAB 400 não traz o pagador; no 240 o segmento U identifica quem pagou
+                    state.rejected++;
+                    state.issue(payment, "CPF do pagador não confere com o cliente da fatura");
+                } else if (payment.amountCents() < cents(invoice.amount())) {
+                    state.rejected++;
+                    state.issue(payment, "Valor pago menor que o valor da fatura");
+                } else if (invoice.status() == Invoice.Status.PAID) {
+                    state.duplicates++;
+                    state.issue(payment, "Fatura já paga");
+                } else if (!state.settledIds.add(invoice.id())) {
+                    state.duplicates++;
+                    state.issue(payment, "Pagamento em duplicidade no arquivo");
+                } else {
+                    settlements.add(new Settlement(payment, invoice.id()));
+                }
+            }
+            if (settlements.isEmpty()) {
+                return;
+            }
+
+            LocalDate today = LocalDate.now();
+            // O bloco inteiro cabe em um batch: um único array de contagens
+            int[] updated = jdbcTemplate.batchUpdate(SETTLE_INVOICE, settlements, settlements.size(), (ps, settlement) -> {
+                CnabReturnParser.Payment payment = settlement.payment();
+                ps.setBigDecimal(1, BigDecimal.valueOf(payment.amountCents(), 2));
+                ps.setDate(2, Date.valueOf(payment.paidAt() != null ? payment.paidAt() : today));
+                ps.setLong(3, state.companyId);
+                ps.setLong(4, settlement.invoiceId());
+            })[0];
+
+            List<Long> settledIds = new ArrayList<>(settlements.size());
+            for (int i = 0; i < updated.length; i++) {
+                Settlement settlement = settlements.get(i);
+                if (updated[i] == 0) {
+                    // Baixada por outra conciliação entre a consulta e o update
+                    state.duplicates++;
+                    state.issue(settlement.payment(), "Fatura já paga");
+                } else {
+                    state.settled++;
+                    state.settledCents += settlement.payment().amountCents();
+                    settledIds.add(settlement.invoiceId());
+                }
+            }
+            if (!settledIds.isEmpty()) {
+                auditTrail.record(AuditTrail.INVOICE, null, AuditTrail.Action.UPDATE,
+                        AuditTrail.changes().set("status", Invoice.Status.PAID).set("ids", settledIds));
+            }
+        });
+    }
+
+    // Fatura em aberto mais antiga do CPF, com o valor pago, que ainda não recebeu pagamento
+    // neste arquivo. Sem o "seu número" o valor é o que distingue as faturas do cliente.
+    private static InvoiceMatch nextOpen(Deque<InvoiceMatch> open, long amountCents, ReconcileState state) {
+        if (open == null) {
+            return null;
+        }
+        Iterator<InvoiceMatch> it = open.iterator();
+        while (it.hasNext()) {
+            InvoiceMatch invoice = it.next();
+            if (state.settledIds.contains(invoice.id())) {
+                it.remove();
+            } else if (cents(invoice.amount()) == amountCents) {
+                it.remove();
+                return invoice;
+            }
+        }
+        return null;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private record Settlement(CnabReturnParser.Payment payment, long invoiceId) {
+    }
+
+    private static final class ReconcileState {
+        private final Long companyId;
+        private final Set<Long> settledIds = new HashSet<>();
+        private final List<CnabReturnReport.RecordIssue> issues = new ArrayList<>();
+        private int settled;
+        private long settledCents;
+        private int unmatched;
+        private int duplicates;
+        private int rejected;
+
+        ReconcileState(Long companyId) {
+            this.companyId = companyId;
+        }
+
+        void issue(CnabReturnParser.Payment payment, String message) {
+            if (issues.size() < MAX_REPORTED_ISSUES) {
+                issues.add(new CnabReturnReport.RecordIssue(payment.line(), payment.reference(), payment.payerCpf(),
+                        BigDecimal.valueOf(payment.amountCents(), 2), message));
+            }
+        }
+    }
+}
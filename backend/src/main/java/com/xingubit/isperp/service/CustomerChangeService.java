@@ -0,0 +1,139 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.CustomerChangeFeed;
+import com.xingubit.isperp.dto.CustomerSummary;
+import com.xingubit.isperp.entity.CustomerChange;
+import com.xingubit.isperp.exception.CursorExpiredException;
+import com.xingubit.isperp.repository.CustomerChangeRepository;
+import com.xingubit.isperp.repository.CustomerRepository;
+import com.xingubit.isperp.util.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Feed incremental de alterações de clientes, lido do outbox customer_changes.
+ * O consumidor guarda o nextCursor de cada resposta e o envia como "since" na seguinte,
+ * recebendo apenas o que mudou desde então (inclusive exclusões).
+ */
+@Service
+@Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
+public class CustomerChangeService {
+
+    public static final int DEFAULT_FEED_LIMIT = 500;
+    public static final int MAX_FEED_LIMIT = 5000;
+    static final int PURGE_CHUNK_SIZE = 5000;
+
+    @Autowired
+    private CustomerChangeRepository customerChangeRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    // Alterações mais recentes que isso ainda não são entregues: o id AUTO_INCREMENT é
+    // reservado no INSERT, e uma transação mais lenta pode confirmar um id menor depois
+    // que o consumidor já avançou o cursor além dele
+    @Value("${isperp.changes.settle-ms:2000}")
+    private long settleMillis;
+
+    @Value("${isperp.changes.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Lista as alterações de clientes da empresa registradas depois do cursor
+     * @param since nextCursor da leitura anterior (0 ou null para começar do início retido)
+     * @param limit quantidade máxima de alterações, limitada a {@link #MAX_FEED_LIMIT}
+     * @return alterações em ordem de registro, com o estado atual de cada cliente
+     * @throws CursorExpiredException se alterações posteriores ao cursor já foram expurgadas
+     */
+    // Sem readOnly: a réplica pode estar atrasada mais que settle-ms, e o cursor passaria
+    // por alterações que ela ainda não recebeu
+    @Transactional
+    public CustomerChangeFeed getChanges(Long since, Integer limit) {
+        Long companyId = TenantContext.requireCompanyId();
+        long afterId = since == null ? 0L : since;
+        if (afterId < 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        int maxResults = limit == null ? DEFAULT_FEED_LIMIT : Math.max(1, Math.min(limit, MAX_FEED_LIMIT));
+
+        // Só expira se algum registro da própria empresa posterior ao cursor foi expurgado:
+        // uma empresa sem alterações não perde nada com o expurgo das outras
+        Long purgedUpTo = customerChangeRepository.findPurgedUpTo(companyId);
+        if (afterId > 0 && purgedUpTo != null && afterId < purgedUpTo) {
+            throw new CursorExpiredException("Cursor expirado: refaça a carga completa de clientes");
+        }
+
+        LocalDateTime visibleUntil = customerChangeRepository.currentDatabaseTime()
+                .minus(settleMillis, ChronoUnit.MILLIS);
+        List<CustomerChange> rows = customerChangeRepository.findPage(companyId, afterId, visibleUntil,
+                PageRequest.of(0, maxResults + 1));
+        boolean hasMore = rows.size() > maxResults;
+        List<CustomerChange> changes = hasMore ? rows.subList(0, maxResults) : rows;
+
+        // Estado atual dos clientes alterados, em uma única consulta por chave primária
+        Set<Long> customerIds = new LinkedHashSet<>();
+        for (CustomerChange change : changes) {
+            if (change.getChangeType() != CustomerChange.ChangeType.DELETED) {
+                customerIds.add(change.getCustomerId());
+            }
+        }
+        Map<Long, CustomerSummary> byId = new HashMap<>();
+        if (!customerIds.isEmpty()) {
+            for (CustomerSummary customer : customerRepository.findSummariesByIdIn(companyId, customerIds)) {
+                byId.put(customer.id(), customer);
+            }
+        }
+
+        List<CustomerChangeFeed.Change> items = new ArrayList<>(changes.size());
+        for (CustomerChange change : changes) {
+            CustomerSummary customer = change.getChangeType() == CustomerChange.ChangeType.DELETED
+                    ? null
+                    : byId.get(change.getCustomerId());
+            items.add(new CustomerChangeFeed.Change(change.getId(), change.getCustomerId(),
+                    change.getChangeType(), change.getCustomerVersion(), change.getChangedAt(), customer));
+        }
+
+        return CustomerChangeFeed.builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(changes.isEmpty() ? afterId : changes.get(changes.size() - 1).getId())
+                .build();
+    }
+
+    /**
+     * Expurga alterações mais antigas que a retenção. Consumidores com cursor anterior
+     * ao expurgo recebem 410 e precisam refazer a carga completa.
+     */
+    @Scheduled(cron = "${isperp.changes.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = customerChangeRepository.currentDatabaseTime().minusDays(retentionDays);
+        customerChangeRepository.recordPurgeWatermarks(cutoff);
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = customerChangeRepository.deleteOlderThan(cutoff, PURGE_CHUNK_SIZE);
+            purged += deleted;
+        } while (deleted == PURGE_CHUNK_SIZE);
+        if (purged > 0) {
+            log.info("Feed de alterações de clientes: {} registros anteriores a {} expurgados", purged, cutoff);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.xingubit.isperp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.repository.CustomerRepository;
+import com.xingubit.isperp.util.CpfValidator;
+import com.xingubit.isperp.util.CsvUtils;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportação da base de clientes em streaming: as linhas são lidas por um cursor
+ * forward-only e escritas direto na resposta, sem montar a lista em memória.
+ */
+@Service
+public class CustomerExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER =
+            "id,name,cpf,email,phone,address,city,state,zip_code,active,created_at,updated_at";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escreve todos os clientes da empresa no formato solicitado
+     * @param out stream de saída (não é fechado)
+     * @param companyId empresa dos clientes exportados. Recebida como parâmetro porque a
+     *                  escrita roda na thread assíncrona da resposta, sem o TenantContext
+     * @param format formato de exportação
+     * @param active filtro opcional de situação
+     * @return quantidade de clientes exportados
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, Long companyId, Format format, Boolean active) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonGenerator json = null;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else {
+            json = objectMapper.getFactory().createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        long count = 0;
+        try (Stream<Customer> customers = customerRepository.streamAll(companyId, active)) {
+            Iterator<Customer> iterator = customers.iterator();
+            while (iterator.hasNext()) {
+                Customer customer = iterator.next();
+                if (json == null) {
+                    writeCsv(writer, customer);
+                } else {
+                    writeJson(json, customer);
+                }
+                // Remove do contexto de persistência para manter o heap constante
+                entityManager.detach(customer);
+                count++;
+            }
+        }
+
+        if (json != null) {
+            if (count > 0) {
+                json.writeRaw('\n');
+            }
+            json.flush();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsv(Writer writer, Customer customer) throws IOException {
+        writer.write(String.valueOf(customer.getId()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getName()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(CpfValidator.format(customer.getCpf())));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getEmail()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getPhone()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getAddress()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getCity()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getState()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(CsvUtils.escape(customer.getZipCode()));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(String.valueOf(Boolean.TRUE.equals(customer.getActive())));
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(customer.getCreatedAt() == null ? "" : customer.getCreatedAt().toString());
+        writer.write(CsvUtils.SEPARATOR);
+        writer.write(customer.getUpdatedAt() == null ? "" : customer.getUpdatedAt().toString());
+        writer.write('\n');
+    }
+
+    private void writeJson(JsonGenerator json, Customer customer) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", customer.getId());
+        json.writeStringField("name", customer.getName());
+        json.writeStringField("cpf", CpfValidator.format(customer.getCpf()));
+        json.writeStringField("email", customer.getEmail());
+        json.writeStringField("phone", customer.getPhone());
+        json.writeStringField("address", customer.getAddress());
+        json.writeStringField("city", customer.getCity());
+        json.writeStringField("state", customer.getState());
+        json.writeStringField("zipCode", customer.getZipCode());
+        json.writeBooleanField("active", Boolean.TRUE.equals(customer.getActive()));
+        json.writeStringField("createdAt", customer.getCreatedAt() == null ? null : customer.getCreatedAt().toString());
+        json.writeStringField("updatedAt", customer.getUpdatedAt() == null ? null : customer.getUpdatedAt().toString());
+        json.writeEndObject();
+    }
+}
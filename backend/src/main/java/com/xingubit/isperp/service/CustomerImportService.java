@@ -0,0 +1,338 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.dto.CustomerImportReport;
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.entity.CustomerChange;
+import com.xingubit.isperp.repository.CustomerChangeRepository;
+import com.xingubit.isperp.repository.CustomerRepository;
+import com.xingubit.isperp.util.CpfValidator;
+import com.xingubit.isperp.util.CsvUtils;
+import com.xingubit.isperp.util.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importação em lote de clientes a partir de CSV.
+ * Os registros são processados em blocos: validação em paralelo, verificação de
+ * duplicidade com uma consulta IN por bloco e gravação com saveAll, que o Hibernate
+ * envia em batch graças ao alocador de ids em tabela.
+ */
+@Service
+@Slf4j
+public class CustomerImportService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Autowired
+    private CustomerChangeRepository customerChangeRepository;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    /**
+     * Importa clientes de um CSV com cabeçalho. Colunas reconhecidas:
+     * name, cpf, email, phone, address, city, state, zip_code, active.
+     * Os clientes são gravados na empresa da requisição.
+     * @param in conteúdo do arquivo em UTF-8
+     * @return relatório com erros por linha e vazão
+     */
+    public CustomerImportReport importCsv(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<String> header = CsvUtils.readRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("Arquivo vazio");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("cpf")) {
+            throw new IllegalArgumentException("Cabeçalho deve conter as colunas 'name' e 'cpf'");
+        }
+
+        // Lido aqui: a validação roda em threads do parallelStream, sem o TenantContext
+        ImportState state = new ImportState(TenantContext.requireCompanyId());
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        int line = 1;
+        List<String> record;
+        while ((record = CsvUtils.readRecord(reader)) != null) {
+            line++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            chunk.add(new ImportRow(line, record, columns));
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, state);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, state);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        log.info("Importação de clientes: {} linhas, {} importadas, {} com erro em {} ms",
+                state.totalRows, state.imported, state.errors.size(), elapsedMillis);
+
+        return CustomerImportReport.builder()
+                .totalRows(state.totalRows)
+                .imported(state.imported)
+                .failed(state.errors.size())
+                .elapsedMillis(elapsedMillis)
+                .rowsPerSecond(state.totalRows / seconds)
+                .errors(state.errors)
+                .build();
+    }
+
+    private void processChunk(List<ImportRow> chunk, ImportState state) {
+        state.totalRows += chunk.size();
+
+        // Validação de CPF/CEP é CPU-bound e independente por linha
+        chunk.parallelStream().forEach(ImportRow::validate);
+
+        // Duplicidades dentro do próprio arquivo
+        Set<String> cpfs = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                continue;
+            }
+            if (!state.seenCpfs.add(row.customer.getCpf())) {
+                row.error = "CPF duplicado no arquivo";
+            } else if (row.customer.getEmail() != null && !state.seenEmails.add(row.customer.getEmail())) {
+                row.error = "Email duplicado no arquivo";
+            } else {
+                cpfs.add(row.customer.getCpf());
+                if (row.customer.getEmail() != null) {
+                    emails.add(row.customer.getEmail());
+                }
+            }
+        }
+
+        // Duplicidades no banco: uma consulta IN por bloco
+        Set<String> existingCpfs = cpfs.isEmpty() ? Set.of() : customerRepository.findExistingCpfs(state.companyId, cpfs);
+        Set<String> existingEmails = emails.isEmpty() ? Set.of() : customerRepository.findExistingEmails(state.companyId, emails);
+
+        List<ImportRow> valid = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (row.error == null) {
+                if (existingCpfs.contains(row.customer.getCpf())) {
+                    row.error = "CPF já cadastrado";
+                } else if (row.customer.getEmail() != null && existingEmails.contains(row.customer.getEmail())) {
+                    row.error = "Email já cadastrado";
+                } else {
+                    valid.add(row);
+                }
+            }
+            if (row.error != null) {
+                state.errors.add(new CustomerImportReport.RowError(row.line, row.rawCpf, row.error));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            state.imported += insert(valid, state);
+        }
+    }
+
+    private int insert(List<ImportRow> rows, ImportState state) {
+        String created = CustomerChange.ChangeType.CREATED.name();
+        List<Customer> customers = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            row.customer.setCompanyId(state.companyId);
+            customers.add(row.customer);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                customerRepository.saveAll(customers);
+                // Envia o lote e libera o contexto de persistência a cada bloco. O flush pelo
+                // repositório traduz violações de chave única em DataIntegrityViolationException
+                customerRepository.flush();
+                entityManager.clear();
+                List<Long> ids = new ArrayList<>(customers.size());
+                for (Customer customer : customers) {
+                    ids.add(customer.getId());
+                }
+                customerChangeRepository.recordChanges(state.companyId, ids, created);
+                auditTrail.record(AuditTrail.CUSTOMER, null, AuditTrail.Action.IMPORT,
+                        AuditTrail.changes().set("ids", ids));
+            });
+            // Os ids já vêm do alocador, sem reconsultar os registros inseridos
+            customers.forEach(customerSearchIndex::put);
+            return rows.size();
+        } catch (DataIntegrityViolationException e) {
+            // Um cadastro concorrente ocupou algum CPF/email entre a verificação e o insert:
+            // refaz o bloco linha a linha para isolar os registros conflitantes
+            log.warn("Conflito no batch insert, gravando bloco linha a linha: {}", e.getMessage());
+            int inserted = 0;
+            for (ImportRow row : rows) {
+                // Descarta o id/versão atribuídos na tentativa revertida, para que seja um novo INSERT
+                row.customer.setId(null);
+                row.customer.setVersion(null);
+                try {
+                    Customer saved = transactionTemplate.execute(status -> {
+                        Customer customer = customerRepository.saveAndFlush(row.customer);
+                        customerChangeRepository.recordChanges(state.companyId, List.of(customer.getId()), created);
+                        auditTrail.record(AuditTrail.CUSTOMER, customer.getId(), AuditTrail.Action.IMPORT, null);
+                        return customer;
+                    });
+                    customerSearchIndex.put(saved);
+                    inserted++;
+                } catch (DataIntegrityViolationException rowError) {
+                    state.errors.add(new CustomerImportReport.RowError(row.line, row.rawCpf, "CPF ou email já cadastrado"));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * Verifica CEP no formato 00000-000 ou 00000000
+     */
+    static boolean isValidZipCode(String zipCode) {
+        int length = zipCode.length();
+        if (length != 8 && length != 9) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = zipCode.charAt(i);
+            if (length == 9 && i == 5) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class ImportState {
+        private final Long companyId;
+        private int totalRows;
+        private int imported;
+        private final List<CustomerImportReport.RowError> errors = new ArrayList<>();
+        private final Set<String> seenCpfs = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+
+        ImportState(Long companyId) {
+            this.companyId = companyId;
+        }
+    }
+
+    private static final class ImportRow {
+        private final int line;
+        private final List<String> record;
+        private final Map<String, Integer> columns;
+        private final String rawCpf;
+        private Customer customer;
+        private String error;
+
+        ImportRow(int line, List<String> record, Map<String, Integer> columns) {
+            this.line = line;
+            this.record = record;
+            this.columns = columns;
+            this.rawCpf = field("cpf");
+        }
+
+        private String field(String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        void validate() {
+            String name = field("name");
+            if (name == null) {
+                error = "Nome é obrigatório";
+                return;
+            }
+            if (name.length() > 255) {
+                error = "Nome deve ter no máximo 255 caracteres";
+                return;
+            }
+            String cpf = CpfValidator.normalize(rawCpf);
+            if (cpf == null) {
+                error = "CPF inválido";
+                return;
+            }
+            String email = field("email");
+            if (email != null && (email.length() > 255 || email.indexOf('@') < 1)) {
+                error = "Email deve ter formato válido";
+                return;
+            }
+            String zipCode = field("zip_code");
+            if (zipCode != null && !isValidZipCode(zipCode)) {
+                error = "CEP deve ter formato válido";
+                return;
+            }
+            String state = field("state");
+            if (state != null && state.length() > 2) {
+                error = "Estado deve ter no máximo 2 caracteres";
+                return;
+            }
+            String phone = field("phone");
+            if (phone != null && phone.length() > 20) {
+                error = "Telefone deve ter no máximo 20 caracteres";
+                return;
+            }
+            String address = field("address");
+            if (address != null && address.length() > 500) {
+                error = "Endereço deve ter no máximo 500 caracteres";
+                return;
+            }
+            String city = field("city");
+            if (city != null && city.length() > 100) {
+                error = "Cidade deve ter no máximo 100 caracteres";
+                return;
+            }
+            String active = field("active");
+
+            customer = new Customer();
+            customer.setName(name);
+            customer.setCpf(cpf);
+            customer.setEmail(email);
+            customer.setPhone(phone);
+            customer.setAddress(address);
+            customer.setCity(city);
+            customer.setState(state);
+            customer.setZipCode(zipCode);
+            customer.setActive(active == null || !"false".equalsIgnoreCase(active) && !"0".equals(active));
+        }
+    }
+}
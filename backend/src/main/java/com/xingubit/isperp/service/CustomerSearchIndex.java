@@ -0,0 +1,496 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.repository.CustomerRepository;
+import com.xingubit.isperp.util.TextNormalizer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice de busca de clientes em memória, baseado em trigramas.
+ * Nome e email são indexados sem acento e sem caixa; CPF e telefone apenas pelos dígitos,
+ * permitindo busca parcial por qualquer um desses campos.
+ * O índice é carregado na inicialização e mantido em sincronia pelo {@link CustomerService},
+ * com as alterações aplicadas após o commit.
+ * Guarda clientes de todas as empresas; cada busca considera apenas os da empresa informada.
+ */
+@Service
+@Slf4j
+public class CustomerSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Segment segment = new Segment();
+    private volatile boolean ready;
+
+    // Alterações recebidas durante uma reconstrução, reaplicadas sobre o novo segmento
+    private List<Customer> pendingPuts;
+    private List<Long> pendingRemovals;
+
+    /**
+     * @return true quando o índice já foi carregado e pode responder buscas
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Recarrega o índice periodicamente, cobrindo alterações feitas por outras instâncias
+     */
+    @Scheduled(initialDelayString = "${isperp.search.refresh-interval-ms:600000}",
+               fixedDelayString = "${isperp.search.refresh-interval-ms:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Reconstrói o índice a partir do banco, sem bloquear as buscas durante a leitura
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingPuts = new ArrayList<>();
+            pendingRemovals = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Customer> customers = customerRepository.streamAllCompanies()) {
+                    customers.forEach(customer -> {
+                        rebuilt.put(customer);
+                        entityManager.detach(customer);
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconstruir o índice de busca de clientes", e);
+            lock.writeLock().lock();
+            try {
+                pendingPuts = null;
+                pendingRemovals = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long id : pendingRemovals) {
+                rebuilt.remove(id);
+            }
+            for (Customer customer : pendingPuts) {
+                rebuilt.put(customer);
+            }
+            pendingPuts = null;
+            pendingRemovals = null;
+            segment = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de busca de clientes carregado: {} clientes em {} ms",
+                rebuilt.liveCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Inclui ou atualiza um cliente no índice. Dentro de uma transação, só após o commit:
+     * um rollback não pode deixar na busca um cliente que não existe no banco
+     */
+    public void put(Customer customer) {
+        if (afterCommit(() -> put(customer))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            segment.put(customer);
+            if (pendingPuts != null) {
+                pendingPuts.add(customer);
+            }
+            if (segment.needsCompaction()) {
+                segment = segment.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um cliente do índice (após o commit, dentro de uma transação)
+     */
+    public void remove(Long id) {
+        if (afterCommit(() -> remove(id))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            segment.remove(id);
+            if (pendingRemovals != null) {
+                pendingRemovals.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Registra a ação para depois do commit da transação atual; false se não há transação
+    private static boolean afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Busca clientes por nome, email, CPF ou telefone, sem diferenciar acentos e caixa
+     * @param companyId empresa dos clientes buscados
+     * @param query termo digitado (partes de palavras, CPF ou telefone com ou sem máscara)
+     * @param limit quantidade máxima de resultados
+     * @return ids dos clientes encontrados, do mais para o menos relevante
+     */
+    public List<Long> search(Long companyId, String query, int limit) {
+        return search(companyId, query, limit, Field.ANY);
+    }
+
+    /**
+     * Busca restrita a um campo: NAME compara só o nome (sem acento e caixa), CPF só os
+     * dígitos do CPF. Usada pelas buscas por nome e por CPF, que não devem casar email ou telefone.
+     */
+    public List<Long> search(Long companyId, String query, int limit, Field field) {
+        if (companyId == null || query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+
+        boolean numeric = field == Field.CPF || (field == Field.ANY && TextNormalizer.isNumeric(query));
+        Query parsed = numeric
+                ? Query.numeric(TextNormalizer.digits(query), field)
+                : Query.text(TextNormalizer.normalize(query), field);
+        if (parsed.normalized().isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return segment.search(companyId, parsed, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public enum Field {
+        ANY, NAME, CPF
+    }
+
+    private record Query(boolean numeric, String normalized, String[] terms, Field field) {
+
+        static Query numeric(String digits, Field field) {
+            return new Query(true, digits, new String[]{digits}, field);
+        }
+
+        static Query text(String normalized, Field field) {
+            return new Query(false, normalized, normalized.split(" "), field);
+        }
+    }
+
+    /**
+     * Estrutura do índice. Cada cliente ocupa um slot; as listas de postagem guardam slots
+     * em ordem crescente, o que permite intersecção por merge. Atualizações invalidam o slot
+     * anterior e ocupam um novo; slots mortos são descartados na compactação.
+     */
+    private static final class Segment {
+
+        private long[] ids = new long[1024];
+        private long[] companyIds = new long[1024];
+        private String[] names = new String[1024];
+        private String[] emails = new String[1024];
+        private String[] cpfs = new String[1024];
+        private String[] phones = new String[1024];
+        private final BitSet dead = new BitSet();
+        private int deadCount;
+        private int size;
+
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+
+        void put(Customer customer) {
+            remove(customer.getId());
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                companyIds = Arrays.copyOf(companyIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+                cpfs = Arrays.copyOf(cpfs, capacity);
+                phones = Arrays.copyOf(phones, capacity);
+            }
+
+            int slot = size++;
+            ids[slot] = customer.getId();
+            companyIds[slot] = customer.getCompanyId() == null ? 0L : customer.getCompanyId();
+            names[slot] = TextNormalizer.normalize(customer.getName());
+            emails[slot] = TextNormalizer.normalize(customer.getEmail());
+            cpfs[slot] = TextNormalizer.digits(customer.getCpf());
+            phones[slot] = TextNormalizer.digits(customer.getPhone());
+            slotById.put(customer.getId(), slot);
+
+            addGrams(names[slot], slot);
+            addGrams(emails[slot], slot);
+            addGrams(cpfs[slot], slot);
+            addGrams(phones[slot], slot);
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                dead.set(slot);
+                deadCount++;
+                names[slot] = null;
+                emails[slot] = null;
+                cpfs[slot] = null;
+                phones[slot] = null;
+            }
+        }
+
+        int liveCount() {
+            return slotById.size();
+        }
+
+        boolean needsCompaction() {
+            return size > 1024 && deadCount > size / 4;
+        }
+
+        Segment compact() {
+            Segment compacted = new Segment();
+            for (int slot = 0; slot < size; slot++) {
+                if (!dead.get(slot)) {
+                    compacted.putNormalized(ids[slot], companyIds[slot], names[slot], emails[slot], cpfs[slot],
+                            phones[slot]);
+                }
+            }
+            return compacted;
+        }
+
+        private void putNormalized(long id, long companyId, String name, String email, String cpf,
+                                   String phone) {
+            Customer customer = new Customer();
+            customer.setId(id);
+            customer.setCompanyId(companyId);
+            customer.setName(name);
+            customer.setEmail(email);
+            customer.setCpf(cpf);
+            customer.setPhone(phone);
+            put(customer);
+        }
+
+        private void addGrams(String text, int slot) {
+            for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+                IntList list = postings.computeIfAbsent(gram(text, i), key -> new IntList());
+                // O mesmo trigrama pode aparecer mais de uma vez no cliente
+                if (list.size == 0 || list.values[list.size - 1] != slot) {
+                    list.add(slot);
+                }
+            }
+        }
+
+        private static long gram(String text, int offset) {
+            return ((long) text.charAt(offset) << 32)
+                    | ((long) text.charAt(offset + 1) << 16)
+                    | text.charAt(offset + 2);
+        }
+
+        List<Long> search(long companyId, Query query, int limit) {
+            int[] candidates = candidates(query);
+            PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, RESULT_ORDER);
+
+            int count = candidates == null ? size : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int slot = candidates == null ? i : candidates[i];
+                if (dead.get(slot) || companyIds[slot] != companyId) {
+                    continue;
+                }
+                int score = query.numeric() ? scoreNumeric(slot, query) : scoreText(slot, query);
+                if (score > 0) {
+                    top.add(new long[]{score, names[slot].length(), ids[slot]});
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            Long[] result = new Long[top.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = top.poll()[2];
+            }
+            return Arrays.asList(result);
+        }
+
+        // Ordem crescente de relevância (o heap descarta o menos relevante):
+        // maior pontuação, depois nome mais curto, depois menor id
+        private static final Comparator<long[]> RESULT_ORDER = Comparator
+                .<long[]>comparingLong(r -> r[0])
+                .thenComparing(Comparator.<long[]>comparingLong(r -> r[1]).reversed())
+                .thenComparing(Comparator.<long[]>comparingLong(r -> r[2]).reversed());
+
+        /**
+         * @return slots que contêm todos os trigramas dos termos, ou null quando nenhum
+         *         termo tem tamanho suficiente e é preciso percorrer todos os clientes
+         */
+        private int[] candidates(Query query) {
+            List<IntList> lists = new ArrayList<>();
+            for (String term : query.terms()) {
+                for (int i = 0; i + GRAM_SIZE <= term.length(); i++) {
+                    IntList list = postings.get(gram(term, i));
+                    if (list == null) {
+                        return new int[0];
+                    }
+                    lists.add(list);
+                }
+            }
+            if (lists.isEmpty()) {
+                return null;
+            }
+
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+            int length = result.length;
+            for (int i = 1; i < lists.size() && length > 0; i++) {
+                length = intersect(result, length, lists.get(i));
+            }
+            return Arrays.copyOf(result, length);
+        }
+
+        private static int intersect(int[] current, int length, IntList other) {
+            int count = 0;
+            int j = 0;
+            for (int i = 0; i < length && j < other.size; i++) {
+                int slot = current[i];
+                while (j < other.size && other.values[j] < slot) {
+                    j++;
+                }
+                if (j < other.size && other.values[j] == slot) {
+                    current[count++] = slot;
+                }
+            }
+            return count;
+        }
+
+        private int scoreNumeric(int slot, Query query) {
+            String digits = query.normalized();
+            String cpf = cpfs[slot];
+            String phone = phones[slot];
+            if (cpf.equals(digits)) {
+                return 1000;
+            }
+            if (cpf.startsWith(digits)) {
+                return 800;
+            }
+            if (query.field() == Field.CPF) {
+                return cpf.contains(digits) ? 500 : 0;
+            }
+            if (phone.equals(digits) || phone.endsWith(digits)) {
+                return 600;
+            }
+            if (cpf.contains(digits)) {
+                return 500;
+            }
+            if (phone.contains(digits)) {
+                return 300;
+            }
+            return 0;
+        }
+
+        private int scoreText(int slot, Query query) {
+            String name = names[slot];
+            // Na busca por nome o email não conta
+            String email = query.field() == Field.NAME ? "" : emails[slot];
+            if (name.equals(query.normalized()) || email.equals(query.normalized())) {
+                return 1000;
+            }
+
+            int score = name.startsWith(query.normalized()) ? 500 : 0;
+            for (String term : query.terms()) {
+                if (startsWord(name, term)) {
+                    score += 100;
+                } else if (name.contains(term)) {
+                    score += 50;
+                } else if (email.contains(term)) {
+                    score += 20;
+                } else {
+                    return 0;
+                }
+            }
+            return score;
+        }
+
+        private static boolean startsWord(String text, String term) {
+            int index = text.indexOf(term);
+            while (index >= 0) {
+                if (index == 0 || text.charAt(index - 1) == ' ') {
+                    return true;
+                }
+                index = text.indexOf(term, index + 1);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Lista de inteiros sem boxing, usada nas listas de postagem
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
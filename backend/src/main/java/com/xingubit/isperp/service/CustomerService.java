@@ -1,128 +1,523 @@
 package com.xingubit.isperp.service;
 
+import com.xingubit.isperp.config.MetricsConfig;
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.dto.CustomerBulkRequest;
+import com.xingubit.isperp.dto.CustomerBulkResult;
+import com.xingubit.isperp.dto.CustomerPage;
+import com.xingubit.isperp.dto.CustomerSummary;
 import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.entity.CustomerChange;
+import com.xingubit.isperp.repository.CustomerChangeRepository;
 import com.xingubit.isperp.repository.CustomerRepository;
 import com.xingubit.isperp.util.CpfValidator;
+import com.xingubit.isperp.util.CursorCodec;
+import com.xingubit.isperp.util.EntityTags;
+import com.xingubit.isperp.util.TenantContext;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class CustomerService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final int BULK_CHUNK_SIZE = 1000;
+    public static final int MAX_BULK_IDS = 100_000;
+
     @Autowired
     private CustomerRepository customerRepository;
 
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Autowired
+    private BusinessErrorMetrics businessErrorMetrics;
+
+    // Toda alteração de cliente grava também o outbox do feed de alterações, na mesma transação
+    @Autowired
+    private CustomerChangeRepository customerChangeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> getAllCustomers() {
+        return customerRepository.findAllSummaries(TenantContext.requireCompanyId());
     }
 
-    public List<Customer> getActiveCustomers() {
-        return customerRepository.findByActiveTrue();
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> getActiveCustomers() {
+        return customerRepository.findActiveSummaries(TenantContext.requireCompanyId());
+    }
+
+    /**
+     * Versão da listagem de clientes da empresa: o último id do outbox de alterações, gravado
+     * na mesma transação de toda inclusão, alteração e exclusão. Custa uma leitura de índice,
+     * em vez de COUNT/SUM sobre a partição a cada GET.
+     */
+    @Transactional(readOnly = true)
+    public CollectionFingerprint getCustomersFingerprint() {
+        Long companyId = TenantContext.requireCompanyId();
+        List<CustomerChange> latest = customerChangeRepository.findLatest(companyId, PageRequest.of(0, 1));
+        if (!latest.isEmpty()) {
+            return CollectionFingerprint.ofVersion(latest.get(0).getId(), latest.get(0).getChangedAt());
+        }
+        // Tudo expurgado: a marca do expurgo não diminui, então a versão também não volta atrás
+        return CollectionFingerprint.ofVersion(customerChangeRepository.findPurgedUpTo(companyId), null);
+    }
+
+    /**
+     * Mesma versão da listagem completa: qualquer alteração pode mudar quem está ativo
+     */
+    @Transactional(readOnly = true)
+    public CollectionFingerprint getActiveCustomersFingerprint() {
+        return getCustomersFingerprint();
+    }
+
+    /**
+     * Lista clientes por paginação keyset, sem OFFSET
+     * @param cursor cursor retornado pela página anterior (null para a primeira página)
+     * @param size tamanho da página, limitado a {@link #MAX_PAGE_SIZE}
+     * @param sortByName ordena por (nome, id) em vez de id
+     * @param active filtro opcional de situação
+     * @param city filtro opcional de cidade
+     * @param state filtro opcional de estado
+     * @return página de clientes com o cursor da próxima página
+     */
+    @Transactional(readOnly = true)
+    public CustomerPage getCustomersPage(String cursor, Integer size, boolean sortByName,
+                                         Boolean active, String city, String state) {
+        Long companyId = TenantContext.requireCompanyId();
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        CursorCodec.Cursor after = cursor == null || cursor.isEmpty() ? null : CursorCodec.decode(cursor);
+        String cityFilter = city == null || city.isBlank() ? null : city.trim();
+        String stateFilter = state == null || state.isBlank() ? null : state.trim();
+
+        // Busca um registro a mais para saber se existe próxima página
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<CustomerSummary> rows;
+        if (sortByName) {
+            String afterName = after == null || after.name() == null ? "" : after.name();
+            long afterId = after == null ? 0L : after.id();
+            rows = customerRepository.findPageOrderByName(companyId, afterName, afterId, active, cityFilter, stateFilter, limit);
+        } else {
+            long afterId = after == null ? 0L : after.id();
+            rows = customerRepository.findPageOrderById(companyId, afterId, active, cityFilter, stateFilter, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<CustomerSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            CustomerSummary last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(last.id(), sortByName ? last.name() : null);
+        }
+
+        return CustomerPage.builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerById(Long id) {
-        return customerRepository.findById(id);
+        return customerRepository.findByIdAndCompanyId(id, TenantContext.requireCompanyId());
     }
 
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerByCpf(String cpf) {
-        return customerRepository.findByCpf(cpf);
+        return customerRepository.findByCompanyIdAndCpf(TenantContext.requireCompanyId(), cpf);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerByEmail(String email) {
-        return customerRepository.findByEmail(email);
+        return customerRepository.findByCompanyIdAndEmail(TenantContext.requireCompanyId(), email);
     }
 
-    public List<Customer> searchCustomersByName(String name) {
-        return customerRepository.findByNameContainingIgnoreCase(name);
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> searchCustomersByName(String name) {
+        if (customerSearchIndex.isReady()) {
+            return searchIndex(TenantContext.requireCompanyId(), name, MAX_SEARCH_LIMIT, CustomerSearchIndex.Field.NAME);
+        }
+        return customerRepository.findSummariesByNameContaining(TenantContext.requireCompanyId(), escapeLike(name),
+                PageRequest.of(0, MAX_SEARCH_LIMIT));
     }
 
-    public List<Customer> searchCustomersByCpf(String cpf) {
-        return customerRepository.findByCpfContaining(cpf);
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> searchCustomersByCpf(String cpf) {
+        if (customerSearchIndex.isReady()) {
+            return searchIndex(TenantContext.requireCompanyId(), cpf, MAX_SEARCH_LIMIT, CustomerSearchIndex.Field.CPF);
+        }
+        return customerRepository.findSummariesByCpfContaining(TenantContext.requireCompanyId(), escapeLike(cpf),
+                PageRequest.of(0, MAX_SEARCH_LIMIT));
     }
 
-    public Customer createCustomer(Customer customer) {
-        // Limpar e validar CPF
-        String cleanCpf = CpfValidator.clean(customer.getCpf());
-        if (!CpfValidator.isValid(cleanCpf)) {
-            throw new RuntimeException("CPF inválido");
+    /**
+     * Busca clientes por nome, email, CPF ou telefone no índice em memória
+     * @param query termo de busca, sem diferenciar acentos e caixa
+     * @param limit quantidade máxima de resultados, limitada a {@link #MAX_SEARCH_LIMIT}
+     * @return clientes ordenados por relevância
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> searchCustomers(String query, Integer limit) {
+        Long companyId = TenantContext.requireCompanyId();
+        int maxResults = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        if (!customerSearchIndex.isReady()) {
+            // Índice ainda carregando: consulta direta ao banco
+            return customerRepository.findSummariesByNameContaining(companyId, escapeLike(query),
+                    PageRequest.of(0, maxResults));
         }
-        
-        // Verificar se o CPF já existe
-        if (customerRepository.existsByCpf(cleanCpf)) {
-            throw new RuntimeException("CPF já cadastrado");
+
+        return searchIndex(companyId, query, maxResults, CustomerSearchIndex.Field.ANY);
+    }
+
+    /**
+     * Escapa os curingas do LIKE: "%" ou "_" digitados na busca não podem virar um
+     * padrão que casa com todos os clientes e obriga a varrer a partição
+     */
+    private static String escapeLike(String term) {
+        if (term == null) {
+            return null;
         }
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
-        // Verificar se o email já existe (se fornecido)
-        if (customer.getEmail() != null && !customer.getEmail().isEmpty() 
-            && customerRepository.existsByEmail(customer.getEmail())) {
-            throw new RuntimeException("Email já cadastrado");
+    private List<CustomerSummary> searchIndex(Long companyId, String query, int maxResults,
+                                              CustomerSearchIndex.Field field) {
+        List<Long> ids = customerSearchIndex.search(companyId, query, maxResults, field);
+        if (ids.isEmpty()) {
+            return List.of();
         }
 
-        // Salvar com CPF limpo
+        // Uma única consulta por chave primária, reordenada pela relevância
+        Map<Long, CustomerSummary> byId = new HashMap<>();
+        for (CustomerSummary customer : customerRepository.findSummariesByIdIn(companyId, ids)) {
+            byId.put(customer.id(), customer);
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(customer -> customer != null)
+                .toList();
+    }
+
+    @Transactional
+    public Customer createCustomer(Customer customer) {
+        // Validar e normalizar CPF em uma única passada
+        String cleanCpf = CpfValidator.normalize(customer.getCpf());
+        if (cleanCpf == null) {
+            businessErrorMetrics.invalidCpf();
+            throw new RuntimeException("CPF inválido");
+        }
+        
+        // Salvar com CPF limpo. CPF e email duplicados são barrados pelas chaves
+        // únicas, sem consultas prévias e sem corrida entre criações simultâneas
+        // A empresa vem sempre do token, nunca do corpo da requisição
+        customer.setCompanyId(TenantContext.requireCompanyId());
         customer.setCpf(cleanCpf);
-        return customerRepository.save(customer);
+        customer.setEmail(emptyToNull(customer.getEmail()));
+        Customer saved;
+        try {
+            saved = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e);
+        }
+        recordChange(saved.getCompanyId(), saved.getId(), CustomerChange.ChangeType.CREATED);
+        auditTrail.record(AuditTrail.CUSTOMER, saved.getId(), AuditTrail.Action.CREATE, AuditTrail.changes()
+                .set("name", saved.getName())
+                .set("cpf", saved.getCpf())
+                .set("email", saved.getEmail())
+                .set("active", saved.getActive()));
+        customerSearchIndex.put(saved);
+        return saved;
     }
 
+    @Transactional
     public Customer updateCustomer(Long id, Customer customerDetails) {
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
+        return updateCustomer(id, customerDetails, null);
+    }
 
-        // Limpar e validar CPF
-        String cleanCpf = CpfValidator.clean(customerDetails.getCpf());
-        if (!CpfValidator.isValid(cleanCpf)) {
+    /**
+     * Atualiza o cliente com um único UPDATE condicional, sem carregar a entidade antes
+     * @param expectedVersion versão informada no If-Match (null para não conferir)
+     * @return o cliente relido após o UPDATE, com a versão e o createdAt gravados
+     */
+    @Transactional
+    public Customer updateCustomer(Long id, Customer customerDetails, Long expectedVersion) {
+        // Validar e normalizar CPF em uma única passada
+        String cleanCpf = CpfValidator.normalize(customerDetails.getCpf());
+        if (cleanCpf == null) {
+            businessErrorMetrics.invalidCpf();
             throw new RuntimeException("CPF inválido");
         }
 
-        // Verificar se o CPF já existe (exceto para o próprio cliente)
-        Optional<Customer> existingCustomerByCpf = customerRepository.findByCpf(cleanCpf);
-        if (existingCustomerByCpf.isPresent() && !existingCustomerByCpf.get().getId().equals(id)) {
-            throw new RuntimeException("CPF já cadastrado");
+        Long companyId = TenantContext.requireCompanyId();
+        String email = emptyToNull(customerDetails.getEmail());
+        Boolean active = customerDetails.getActive() == null ? Boolean.TRUE : customerDetails.getActive();
+        LocalDateTime now = LocalDateTime.now();
+
+        int updated;
+        try {
+            updated = customerRepository.updateFields(companyId, id, expectedVersion, customerDetails.getName(), cleanCpf,
+                    email, customerDetails.getPhone(), customerDetails.getAddress(), customerDetails.getCity(),
+                    customerDetails.getState(), customerDetails.getZipCode(), active, now);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e);
         }
 
-        // Verificar se o email já existe (exceto para o próprio cliente)
-        if (customerDetails.getEmail() != null && !customerDetails.getEmail().isEmpty()) {
-            Optional<Customer> existingCustomerByEmail = customerRepository.findByEmail(customerDetails.getEmail());
-            if (existingCustomerByEmail.isPresent() && !existingCustomerByEmail.get().getId().equals(id)) {
-                throw new RuntimeException("Email já cadastrado");
+        if (updated == 0) {
+            // Caminho raro: só aqui uma segunda consulta separa "não existe" de "versão diferente"
+            if (expectedVersion != null && customerRepository.existsByIdAndCompanyId(id, companyId)) {
+                throw new PreconditionFailedException("O registro foi alterado por outra requisição");
             }
+            throw new RuntimeException("Cliente não encontrado");
         }
+        recordChange(companyId, id, CustomerChange.ChangeType.UPDATED);
+        // O UPDATE é direto no banco, sem ler o estado anterior: registra os valores gravados
+        auditTrail.record(AuditTrail.CUSTOMER, id, AuditTrail.Action.UPDATE, AuditTrail.changes()
+                .set("name", customerDetails.getName())
+                .set("cpf", cleanCpf)
+                .set("email", email)
+                .set("phone", customerDetails.getPhone())
+                .set("address", customerDetails.getAddress())
+                .set("city", customerDetails.getCity())
+                .set("state", customerDetails.getState())
+                .set("zipCode", customerDetails.getZipCode())
+                .set("active", active));
 
-        customer.setName(customerDetails.getName());
-        customer.setCpf(cleanCpf);
-        customer.setEmail(customerDetails.getEmail());
-        customer.setPhone(customerDetails.getPhone());
-        customer.setAddress(customerDetails.getAddress());
-        customer.setCity(customerDetails.getCity());
-        customer.setState(customerDetails.getState());
-        customer.setZipCode(customerDetails.getZipCode());
-        customer.setActive(customerDetails.getActive());
-
-        return customerRepository.save(customer);
+        // Releitura pela chave primária: sem If-Match a versão nova não é conhecida aqui,
+        // e montar o retorno com os dados enviados deixaria versão e createdAt nulos
+        Customer updatedCustomer = customerRepository.findByIdAndCompanyId(id, companyId)
+                .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
+        customerSearchIndex.put(updatedCustomer);
+        return updatedCustomer;
     }
 
+    @Transactional
     public void deleteCustomer(Long id) {
-        Customer customer = customerRepository.findById(id)
+        Customer customer = customerRepository.findByIdAndCompanyId(id, TenantContext.requireCompanyId())
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
         
+        // O registro lê a linha do cliente: precisa vir antes da exclusão
+        recordChange(customer.getCompanyId(), id, CustomerChange.ChangeType.DELETED);
         customerRepository.delete(customer);
+        auditTrail.record(AuditTrail.CUSTOMER, id, AuditTrail.Action.DELETE, AuditTrail.changes()
+                .set("name", customer.getName())
+                .set("cpf", customer.getCpf()));
+        customerSearchIndex.remove(id);
     }
 
+    @Transactional
     public void deactivateCustomer(Long id) {
-        Customer customer = customerRepository.findById(id)
+        deactivateCustomer(id, null);
+    }
+
+    @Transactional
+    public Customer deactivateCustomer(Long id, Long expectedVersion) {
+        Customer customer = customerRepository.findByIdAndCompanyId(id, TenantContext.requireCompanyId())
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
+        EntityTags.checkVersion(expectedVersion, customer.getVersion());
         
+        Boolean wasActive = customer.getActive();
         customer.setActive(false);
-        customerRepository.save(customer);
+        // Flush para que a versão devolvida (ETag) e a registrada no outbox já sejam as novas
+        Customer saved = customerRepository.saveAndFlush(customer);
+        recordChange(saved.getCompanyId(), id, CustomerChange.ChangeType.UPDATED);
+        auditTrail.record(AuditTrail.CUSTOMER, id, AuditTrail.Action.DEACTIVATE,
+                AuditTrail.changes().diff("active", wasActive, saved.getActive()));
+        return saved;
     }
 
+    @Transactional
     public void activateCustomer(Long id) {
-        Customer customer = customerRepository.findById(id)
+        activateCustomer(id, null);
+    }
+
+    @Transactional
+    public Customer activateCustomer(Long id, Long expectedVersion) {
+        Customer customer = customerRepository.findByIdAndCompanyId(id, TenantContext.requireCompanyId())
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
+        EntityTags.checkVersion(expectedVersion, customer.getVersion());
         
+        Boolean wasActive = customer.getActive();
         customer.setActive(true);
-        customerRepository.save(customer);
+        // Flush para que a versão devolvida (ETag) e a registrada no outbox já sejam as novas
+        Customer saved = customerRepository.saveAndFlush(customer);
+        recordChange(saved.getCompanyId(), id, CustomerChange.ChangeType.UPDATED);
+        auditTrail.record(AuditTrail.CUSTOMER, id, AuditTrail.Action.ACTIVATE,
+                AuditTrail.changes().diff("active", wasActive, saved.getActive()));
+        return saved;
+    }
+
+    /**
+     * Ativa ou desativa clientes em lote, um UPDATE por bloco de {@link #BULK_CHUNK_SIZE} ids
+     * @param request ids ou filtro por cidade/estado (um dos dois é obrigatório)
+     * @param active situação desejada
+     * @return quantidade de clientes selecionados e efetivamente alterados
+     */
+    public CustomerBulkResult bulkSetActive(CustomerBulkRequest request, boolean active) {
+        Long companyId = TenantContext.requireCompanyId();
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        long matched = 0;
+        long affected = 0;
+
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> ids = distinctIds(request.getIds());
+            matched = ids.size();
+            for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+                affected += setActiveChunk(companyId, chunk, active, now);
+            }
+        } else {
+            String city = blankToNull(request.getCity());
+            String state = blankToNull(request.getState());
+            if (city == null && state == null) {
+                throw new IllegalArgumentException("Informe os ids ou um filtro de cidade/estado");
+            }
+
+            // Cada bloco é uma transação curta, para não travar a tabela inteira de uma vez
+            PageRequest limit = PageRequest.of(0, BULK_CHUNK_SIZE);
+            long afterId = 0L;
+            List<Long> chunk;
+            do {
+                chunk = customerRepository.findIdsByFilter(companyId, afterId, city, state, limit);
+                if (!chunk.isEmpty()) {
+                    matched += chunk.size();
+                    affected += setActiveChunk(companyId, chunk, active, now);
+                    afterId = chunk.get(chunk.size() - 1);
+                }
+            } while (chunk.size() == BULK_CHUNK_SIZE);
+        }
+
+        return CustomerBulkResult.builder()
+                .matched(matched)
+                .affected(affected)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * Exclui clientes em lote, um DELETE por bloco de {@link #BULK_CHUNK_SIZE} ids
+     * @param request ids a excluir
+     * @return quantidade de ids enviados e de clientes excluídos
+     */
+    public CustomerBulkResult bulkDelete(CustomerBulkRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new IllegalArgumentException("Informe os ids dos clientes a excluir");
+        }
+
+        Long companyId = TenantContext.requireCompanyId();
+        long start = System.currentTimeMillis();
+        List<Long> ids = distinctIds(request.getIds());
+        long affected = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            affected += transactionTemplate.execute(status -> {
+                customerChangeRepository.recordChanges(companyId, chunk, CustomerChange.ChangeType.DELETED.name());
+                int deleted = customerRepository.deleteByIds(companyId, chunk);
+                auditTrail.record(AuditTrail.CUSTOMER, null, AuditTrail.Action.BULK_DELETE, AuditTrail.changes()
+                        .set("ids", List.copyOf(chunk))
+                        .set("affected", deleted));
+                return deleted;
+            });
+            chunk.forEach(customerSearchIndex::remove);
+        }
+
+        return CustomerBulkResult.builder()
+                .matched(ids.size())
+                .affected(affected)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * Atualiza um bloco e registra as alterações na mesma transação. Se o UPDATE alterou
+     * só parte do bloco, os demais ids também são registrados: o consumidor do feed apenas
+     * relê um estado que não mudou.
+     */
+    private int setActiveChunk(Long companyId, List<Long> chunk, boolean active, LocalDateTime now) {
+        return transactionTemplate.execute(status -> {
+            int updated = customerRepository.updateActiveByIds(companyId, chunk, active, now);
+            if (updated > 0) {
+                customerChangeRepository.recordChanges(companyId, chunk, CustomerChange.ChangeType.UPDATED.name());
+                auditTrail.record(AuditTrail.CUSTOMER, null,
+                        active ? AuditTrail.Action.BULK_ACTIVATE : AuditTrail.Action.BULK_DEACTIVATE,
+                        AuditTrail.changes()
+                                .set("ids", List.copyOf(chunk))
+                                .set("affected", updated));
+            }
+            return updated;
+        });
+    }
+
+    private void recordChange(Long companyId, Long customerId, CustomerChange.ChangeType type) {
+        customerChangeRepository.recordChanges(companyId, List.of(customerId), type.name());
+    }
+
+    private static List<Long> distinctIds(List<Long> ids) {
+        LinkedHashSet<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        if (distinct.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("Máximo de " + MAX_BULK_IDS + " ids por requisição");
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Converte a violação de chave única do banco no erro de negócio correspondente
+     */
+    private RuntimeException translateDuplicate(DataIntegrityViolationException e) {
+        String constraint = null;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+                break;
+            }
+        }
+        if (constraint == null && e.getMostSpecificCause() != null) {
+            constraint = e.getMostSpecificCause().getMessage();
+        }
+
+        if (constraint != null && constraint.contains("uk_customers_cpf")) {
+            businessErrorMetrics.duplicateCpf();
+            return new RuntimeException("CPF já cadastrado");
+        }
+        if (constraint != null && constraint.contains("uk_customers_email")) {
+            businessErrorMetrics.duplicateEmail();
+            return new RuntimeException("Email já cadastrado");
+        }
+        return e;
     }
-}
\ No newline at end of file
+}
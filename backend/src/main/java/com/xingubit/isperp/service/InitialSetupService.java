@@ -7,6 +7,9 @@ import com.xingubit.isperp.entity.User;
 import com.xingubit.isperp.repository.CompanyRepository;
 import com.xingubit.isperp.repository.SiteSettingsRepository;
 import com.xingubit.isperp.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -26,34 +29,66 @@ public class InitialSetupService {
     @Autowired
     private SiteSettingsRepository siteSettingsRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Uma vez concluído, o setup não volta atrás: o banco deixa de ser consultado
+    private volatile boolean setupCompleted;
+
+    private Counter latchHits;
+    private Counter latchMisses;
+
+    @PostConstruct
+    void registerMetrics() {
+        latchHits = Counter.builder("isperp.cache.requests")
+                .tag("cache", "setup_completed")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        latchMisses = Counter.builder("isperp.cache.requests")
+                .tag("cache", "setup_completed")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
     public boolean isSetupCompleted() {
+        if (setupCompleted) {
+            latchHits.increment();
+            return true;
+        }
+
+        latchMisses.increment();
         // Verificar se todas as etapas do setup foram concluídas:
         // 1. Pelo menos um usuário administrador existe
         // 2. Pelo menos uma empresa foi cadastrada
         // 3. Configurações do site foram definidas
-        return userRepository.count() > 0 && 
+        boolean completed = userRepository.count() > 0 && 
                companyRepository.count() > 0 && 
                siteSettingsRepository.count() > 0;
+        if (completed) {
+            setupCompleted = true;
+        }
+        return completed;
     }
 
     @Transactional
     public void performSetup(InitialSetupRequest request) {
         if (isSetupCompleted()) {
-            throw new RuntimeException("Setup já foi realizado anteriormente");
+            throw new IllegalStateException("Setup já foi realizado anteriormente");
         }
 
-        // Criar usuário administrador
-        createAdminUser(request);
-        
         // Criar empresa
-        createCompany(request);
+        Company company = createCompany(request);
+
+        // Criar usuário administrador, vinculado à empresa
+        createAdminUser(request, company.getId());
         
         // Criar configurações do site
         createSiteSettings(request);
     }
 
-    private void createAdminUser(InitialSetupRequest request) {
+    private void createAdminUser(InitialSetupRequest request, Long companyId) {
         User admin = new User();
+        admin.setCompanyId(companyId);
         admin.setName(request.getAdminName());
         admin.setEmail(request.getAdminEmail());
         admin.setPassword(hashPassword(request.getAdminPassword()));
@@ -73,7 +108,7 @@ public class InitialSetupService {
         return passwordEncoder.encode(password);
     }
 
-    private void createCompany(InitialSetupRequest request) {
+    private Company createCompany(InitialSetupRequest request) {
         Company company = new Company();
         company.setName(request.getCompanyName());
         company.setDocument(request.getCompanyCnpj());
@@ -84,7 +119,7 @@ public class InitialSetupService {
         company.setCreatedAt(LocalDateTime.now());
         company.setUpdatedAt(LocalDateTime.now());
         
-        companyRepository.save(company);
+        return companyRepository.save(company);
     }
 
     private void createSiteSettings(InitialSetupRequest request) {
@@ -0,0 +1,101 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de admissão do login: limita tentativas simultâneas por conta e por IP,
+ * para que uma rajada de logins não ocupe todo o executor de hash.
+ */
+@Service
+public class LoginAdmissionService {
+
+    private final ConcurrentHashMap<String, AtomicInteger> attemptsByAccount = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> attemptsByIp = new ConcurrentHashMap<>();
+
+    private final Counter rejectedByAccount;
+    private final Counter rejectedByIp;
+
+    @Value("${isperp.login.max-concurrent-per-account:2}")
+    private int maxConcurrentPerAccount;
+
+    @Value("${isperp.login.max-concurrent-per-ip:10}")
+    private int maxConcurrentPerIp;
+
+    public LoginAdmissionService(MeterRegistry meterRegistry) {
+        this.rejectedByAccount = Counter.builder("isperp.login.rejected")
+                .tag("reason", "account")
+                .register(meterRegistry);
+        this.rejectedByIp = Counter.builder("isperp.login.rejected")
+                .tag("reason", "ip")
+                .register(meterRegistry);
+        meterRegistry.gauge("isperp.login.in_flight.accounts", attemptsByAccount, ConcurrentHashMap::size);
+    }
+
+    /**
+     * Reserva uma vaga de login para a conta e o IP informados
+     * @return permissão que deve ser fechada ao fim da tentativa
+     * @throws TooManyRequestsException se algum dos limites estiver esgotado
+     */
+    public Permit acquire(String account, String clientIp) {
+        String accountKey = account == null ? "" : account.trim().toLowerCase(Locale.ROOT);
+        String ipKey = clientIp == null ? "" : clientIp;
+
+        if (!tryIncrement(attemptsByIp, ipKey, maxConcurrentPerIp)) {
+            rejectedByIp.increment();
+            throw new TooManyRequestsException("Muitas tentativas de login simultâneas deste endereço");
+        }
+        if (!tryIncrement(attemptsByAccount, accountKey, maxConcurrentPerAccount)) {
+            decrement(attemptsByIp, ipKey);
+            rejectedByAccount.increment();
+            throw new TooManyRequestsException("Muitas tentativas de login simultâneas para esta conta");
+        }
+        return new Permit(accountKey, ipKey);
+    }
+
+    private static boolean tryIncrement(ConcurrentHashMap<String, AtomicInteger> counters, String key, int limit) {
+        boolean[] acquired = new boolean[1];
+        counters.compute(key, (k, current) -> {
+            AtomicInteger counter = current == null ? new AtomicInteger() : current;
+            if (counter.get() < limit) {
+                counter.incrementAndGet();
+                acquired[0] = true;
+            }
+            return counter.get() == 0 ? null : counter;
+        });
+        return acquired[0];
+    }
+
+    private static void decrement(ConcurrentHashMap<String, AtomicInteger> counters, String key) {
+        // Remove a entrada ao zerar para o mapa não crescer com contas/IPs já atendidos
+        counters.computeIfPresent(key, (k, counter) -> counter.decrementAndGet() <= 0 ? null : counter);
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final String accountKey;
+        private final String ipKey;
+        private boolean released;
+
+        private Permit(String accountKey, String ipKey) {
+            this.accountKey = accountKey;
+            this.ipKey = ipKey;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                decrement(attemptsByAccount, accountKey);
+                decrement(attemptsByIp, ipKey);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.xingubit.isperp.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xingubit.isperp.dto.UserSummary;
+import com.xingubit.isperp.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache limitado dos usuários autenticados, indexado pelo email (subject do JWT).
+ * Serve a checagem de usuário ativo e o papel de cada requisição sem ir ao banco.
+ * O UserService invalida a entrada ao alterar ou remover o usuário; a validade
+ * limita a defasagem das alterações feitas por outras instâncias. Tamanho e validade
+ * ficam a cargo do Caffeine, sem lock global no caminho de cada requisição.
+ */
+@Component
+public class PrincipalCache {
+
+    public record CachedPrincipal(UserSummary user, List<GrantedAuthority> authorities, long expiresAt) {
+
+        public boolean isActive() {
+            return Boolean.TRUE.equals(user.active());
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final ConcurrentMap<String, CachedPrincipal> entries;
+
+    // Incrementado a cada invalidação, para descartar leituras iniciadas antes dela
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private final long ttlMillis;
+
+    public PrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                          @Value("${isperp.principal-cache.ttl-ms:30000}") long ttlMillis,
+                          @Value("${isperp.principal-cache.max-entries:10000}") long maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .<String, CachedPrincipal>build()
+                .asMap();
+        this.hits = Counter.builder("isperp.cache.requests")
+                .tag("cache", "principal")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("isperp.cache.requests")
+                .tag("cache", "principal")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("isperp.cache.size", entries, Map::size)
+                .tag("cache", "principal")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param email email do usuário autenticado
+     * @return usuário em cache ou lido do banco; vazio se não existir
+     */
+    public Optional<CachedPrincipal> get(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = entries.get(email);
+        if (cached != null && !cached.isExpired(now)) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+
+        misses.increment();
+        long readGeneration = generation.get();
+        Optional<CachedPrincipal> loaded = userRepository.findSummaryByEmail(email)
+                .map(user -> new CachedPrincipal(user,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.role())), now + ttlMillis));
+
+        // A ausência não é guardada: o usuário pode ser criado a qualquer momento
+        if (loaded.isPresent() && generation.get() == readGeneration) {
+            entries.put(email, loaded.get());
+        } else if (cached != null) {
+            entries.remove(email, cached);
+        }
+        return loaded;
+    }
+
+    public void invalidate(String email) {
+        generation.incrementAndGet();
+        if (email != null) {
+            entries.remove(email);
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,172 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.util.RadiusAccounting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recebe a contabilização RADIUS (Start, Interim-Update e Stop) dos concentradores por UDP.
+ * Cada thread lê do mesmo canal com seus próprios buffers e MD5, identifica o NAS pelo endereço
+ * de origem ({@link RadiusDirectory}), valida o autenticador com o segredo desse NAS, confere
+ * que o User-Name é cliente da empresa do NAS, entrega o pacote ao {@link UsageAggregator} e
+ * responde com Accounting-Response. Só um User-Name fora do diretório em memória acessa o banco.
+ *
+ * Ligado com isperp.radius.enabled=true; os NAS e seus segredos ficam em radius_clients.
+ * Métricas: isperp.radius.packets, com a tag result (accepted, rejected, malformed, unknown_user)
+ */
+@Component
+@ConditionalOnProperty(name = "isperp.radius.enabled", havingValue = "true")
+@Slf4j
+public class RadiusAccountingListener {
+
+    private final UsageAggregator usageAggregator;
+    private final RadiusDirectory radiusDirectory;
+    private final String bindAddress;
+    private final int port;
+    private final int threads;
+    private final int receiveBufferBytes;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter malformed;
+    private final Counter unknownUser;
+
+    private volatile boolean running;
+    private DatagramChannel channel;
+    private final List<Thread> receivers = new ArrayList<>();
+
+    public RadiusAccountingListener(UsageAggregator usageAggregator,
+                                    RadiusDirectory radiusDirectory,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${isperp.radius.bind-address:0.0.0.0}") String bindAddress,
+                                    @Value("${isperp.radius.port:1813}") int port,
+                                    @Value("${isperp.radius.threads:2}") int threads,
+                                    @Value("${isperp.radius.receive-buffer-bytes:4194304}") int receiveBufferBytes) {
+        this.usageAggregator = usageAggregator;
+        this.radiusDirectory = radiusDirectory;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.threads = Math.max(1, threads);
+        this.receiveBufferBytes = receiveBufferBytes;
+
+        this.accepted = packets(meterRegistry, "accepted");
+        this.rejected = packets(meterRegistry, "rejected");
+        this.malformed = packets(meterRegistry, "malformed");
+        this.unknownUser = packets(meterRegistry, "unknown_user");
+    }
+
+    private static Counter packets(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("isperp.radius.packets")
+                .description("Pacotes de contabilização RADIUS recebidos")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        channel = DatagramChannel.open();
+        // Absorve rajadas (ex.: todos os Interim-Update do mesmo minuto) enquanto as threads processam
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        channel.bind(new InetSocketAddress(bindAddress, port));
+
+        running = true;
+        for (int i = 1; i <= threads; i++) {
+            receivers.add(Thread.ofPlatform().name("radius-acct-" + i).daemon().start(this::receiveLoop));
+        }
+        log.info("Contabilização RADIUS escutando em {}:{} com {} threads", bindAddress, port, threads);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        running = false;
+        // Fechar o canal desbloqueia as threads paradas em receive()
+        channel.close();
+        for (Thread receiver : receivers) {
+            receiver.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer packet = ByteBuffer.allocateDirect(RadiusAccounting.MAX_PACKET_LENGTH);
+        ByteBuffer response = ByteBuffer.allocateDirect(RadiusAccounting.HEADER_LENGTH);
+        RadiusAccounting.Request request = new RadiusAccounting.Request();
+        MessageDigest md5 = md5();
+
+        while (running) {
+            try {
+                packet.clear();
+                SocketAddress sender = channel.receive(packet);
+                if (sender == null) {
+                    continue;
+                }
+                packet.flip();
+                RadiusDirectory.NasClient client = radiusDirectory.client(((InetSocketAddress) sender).getAddress());
+                if (client == null) {
+                    // NAS não cadastrado: descartado em silêncio, como um segredo errado
+                    rejected.increment();
+                    continue;
+                }
+                if (handle(packet, client, request, md5)) {
+                    RadiusAccounting.writeResponse(packet, client.secret(), md5, response);
+                    channel.send(response, sender);
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // Um pacote com problema não pode derrubar a thread de recepção
+                log.warn("Erro ao processar pacote RADIUS: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return true se o pacote foi contabilizado e deve ser confirmado ao NAS
+     */
+    private boolean handle(ByteBuffer packet, RadiusDirectory.NasClient client, RadiusAccounting.Request request,
+                           MessageDigest md5) {
+        if (!RadiusAccounting.parse(packet, request)) {
+            malformed.increment();
+            return false;
+        }
+        // Sem resposta o NAS retransmite; com segredo errado, o pacote é descartado em silêncio (RFC 2866)
+        if (!RadiusAccounting.verify(packet, client.secret(), md5)) {
+            rejected.increment();
+            return false;
+        }
+        if (request.isSessionRecord() && !radiusDirectory.isSubscriber(client.companyId(), request.customerId())) {
+            // Confirmado mesmo assim, para o NAS não retransmitir um usuário que não é cliente da empresa
+            unknownUser.increment();
+            return true;
+        }
+        usageAggregator.record(request, client.companyId(), System.currentTimeMillis());
+        accepted.increment();
+        return true;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.util.LongHashTable;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concentradores (NAS) autorizados e clientes que cada um pode creditar.
+ * Cada NAS de radius_clients tem o próprio segredo e pertence a uma empresa; um User-Name só
+ * é aceito se for um cliente dessa empresa. As duas listas ficam em memória e são recarregadas
+ * periodicamente. Um User-Name fora da carga (cliente criado depois dela) é consultado no banco
+ * pela chave primária e o resultado, positivo ou não, fica guardado até a próxima carga
+ * (negativos por no máximo miss-ttl-ms).
+ */
+@Component
+@ConditionalOnProperty(name = "isperp.radius.enabled", havingValue = "true")
+@Slf4j
+public class RadiusDirectory {
+
+    // Limite de consultas avulsas guardadas entre duas cargas
+    private static final int MAX_LOOKUPS = 10_000;
+
+    /**
+     * NAS autorizado: empresa e segredo compartilhado
+     */
+    public record NasClient(long companyId, byte[] secret) {
+    }
+
+    private record Lookup(long companyId, boolean found, long expiresAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long missTtlMillis;
+
+    private volatile Map<InetAddress, NasClient> clients = Map.of();
+    // Id do cliente -> empresa. Só lida depois de publicada: nenhuma thread a altera
+    private volatile LongHashTable subscribers = new LongHashTable(1, 16);
+    private final Map<Long, Lookup> lookups = new ConcurrentHashMap<>();
+
+    public RadiusDirectory(JdbcTemplate jdbcTemplate,
+                           @Value("${isperp.radius.miss-ttl-ms:60000}") long missTtlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.missTtlMillis = missTtlMillis;
+    }
+
+    @PostConstruct
+    void load() {
+        // Antes do listener abrir a porta: sem a carga, todo pacote seria descartado
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${isperp.radius.directory-refresh-ms:300000}",
+               fixedDelayString = "${isperp.radius.directory-refresh-ms:300000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            Map<InetAddress, NasClient> loadedClients = new HashMap<>();
+            for (Map<String, Object> row : jdbcTemplate.queryForList(
+                    "SELECT address, company_id, secret FROM radius_clients WHERE active = TRUE")) {
+                String address = (String) row.get("address");
+                try {
+                    loadedClients.put(InetAddress.getByName(address), new NasClient(
+                            ((Number) row.get("company_id")).longValue(),
+                            ((String) row.get("secret")).getBytes(StandardCharsets.UTF_8)));
+                } catch (UnknownHostException e) {
+                    log.warn("Endereço de NAS inválido em radius_clients ignorado: {}", address);
+                }
+            }
+
+            LongHashTable loadedSubscribers = new LongHashTable(1, Math.max(subscribers.size(), 1024));
+            jdbcTemplate.query("SELECT id, company_id FROM customers", rs -> {
+                loadedSubscribers.set(loadedSubscribers.getOrCreate(rs.getLong(1)), 0, rs.getLong(2));
+            });
+
+            clients = loadedClients;
+            subscribers = loadedSubscribers;
+            lookups.clear();
+            log.info("Diretório RADIUS carregado: {} concentradores, {} clientes em {} ms",
+                    loadedClients.size(), loadedSubscribers.size(), System.currentTimeMillis() - start);
+        } catch (DataAccessException e) {
+            // Mantém a carga anterior
+            log.error("Falha ao carregar o diretório RADIUS: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return o NAS cadastrado com esse endereço, ou null se ele não puder enviar contabilização
+     */
+    public NasClient client(InetAddress address) {
+        return clients.get(address);
+    }
+
+    /**
+     * @return true se o cliente existe e pertence à empresa do NAS
+     */
+    public boolean isSubscriber(long companyId, long customerId) {
+        if (customerId <= 0) {
+            return false;
+        }
+        LongHashTable table = subscribers;
+        int row = table.indexOf(customerId);
+        if (row >= 0) {
+            return table.get(row, 0) == companyId;
+        }
+
+        long now = System.currentTimeMillis();
+        Lookup lookup = lookups.get(customerId);
+        if (lookup == null || lookup.companyId() != companyId || (!lookup.found() && lookup.expiresAt() < now)) {
+            lookup = new Lookup(companyId, exists(companyId, customerId), now + missTtlMillis);
+            if (lookups.size() >= MAX_LOOKUPS) {
+                lookups.clear();
+            }
+            lookups.put(customerId, lookup);
+        }
+        return lookup.found();
+    }
+
+    private boolean exists(long companyId, long customerId) {
+        try {
+            List<Long> found = jdbcTemplate.queryForList(
+                    "SELECT id FROM customers WHERE company_id = ? AND id = ?", Long.class, companyId, customerId);
+            return !found.isEmpty();
+        } catch (DataAccessException e) {
+            log.warn("Falha ao consultar o cliente {} do RADIUS: {}", customerId, e.getMessage());
+            return false;
+        }
+    }
+}
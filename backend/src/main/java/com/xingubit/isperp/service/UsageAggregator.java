@@ -0,0 +1,377 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.util.LongHashTable;
+import com.xingubit.isperp.util.RadiusAccounting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumo de banda por cliente e dia, acumulado em memória a partir da contabilização RADIUS
+ * e gravado em customer_usage em lotes periódicos: o banco recebe uma linha por cliente
+ * ativo a cada flush, em vez de uma escrita por pacote. O dia é o do pacote, não o do flush:
+ * o consumo de antes da meia-noite não vai para o dia seguinte.
+ *
+ * Os contadores do RADIUS são acumulados por sessão; a tabela de sessões guarda o último
+ * valor de cada uma para somar apenas a diferença. As duas tabelas são divididas em
+ * faixas (stripes) com travas próprias, para as threads do listener não disputarem uma trava só.
+ */
+@Component
+@ConditionalOnProperty(name = "isperp.radius.enabled", havingValue = "true")
+@Slf4j
+public class UsageAggregator {
+
+    // Contadores por cliente
+    static final int BYTES_IN = 0;
+    static final int BYTES_OUT = 1;
+    static final int SESSIONS_STARTED = 2;
+    static final int SESSIONS_STOPPED = 3;
+    static final int SESSION_SECONDS = 4;
+    static final int COUNTERS = 5;
+    // Empresa do cliente, copiada da sessão (não é somada)
+    static final int COMPANY = 5;
+    static final int USAGE_FIELDS = 6;
+    private static final int ROW_WIDTH = USAGE_FIELDS + 1;
+
+    // Estado por sessão
+    static final int SESSION_CUSTOMER = 0;
+    static final int SESSION_NAS = 1;
+    static final int SESSION_IN = 2;
+    static final int SESSION_OUT = 3;
+    static final int SESSION_TIME = 4;
+    static final int SESSION_SEEN = 5;
+    static final int SESSION_STOPPED = 6;
+    static final int SESSION_COMPANY = 7;
+    static final int SESSION_FIELDS = 8;
+
+    private static final int STRIPES = 64;
+
+    // Chave do consumo: id do cliente nos bits altos e o dia (epoch day) nos 20 bits baixos
+    private static final int DAY_BITS = 20;
+    private static final long DAY_MASK = (1L << DAY_BITS) - 1;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO customer_usage (company_id, customer_id, usage_date, bytes_in, bytes_out, sessions_started, " +
+            "sessions_stopped, session_seconds, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE bytes_in = bytes_in + VALUES(bytes_in), " +
+            "bytes_out = bytes_out + VALUES(bytes_out), " +
+            "sessions_started = sessions_started + VALUES(sessions_started), " +
+            "sessions_stopped = sessions_stopped + VALUES(sessions_stopped), " +
+            "session_seconds = session_seconds + VALUES(session_seconds), " +
+            "updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long sessionTimeoutMillis;
+    private final int batchSize;
+
+    private final Object[] usageLocks = new Object[STRIPES];
+    private final LongHashTable[] usage = new LongHashTable[STRIPES];
+    private final Object[] sessionLocks = new Object[STRIPES];
+    private final LongHashTable[] sessions = new LongHashTable[STRIPES];
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    // Dia corrente em cache, para não converter a data a cada pacote
+    private volatile UsageDay currentDay = new UsageDay(0, 0, 0);
+
+    private final Counter rowsWritten;
+    private final Counter flushFailures;
+    private final Counter sessionsExpired;
+
+    public UsageAggregator(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${isperp.radius.session-timeout-ms:7200000}") long sessionTimeoutMillis,
+                           @Value("${isperp.radius.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionTimeoutMillis = sessionTimeoutMillis;
+        this.batchSize = batchSize;
+        for (int i = 0; i < STRIPES; i++) {
+            usageLocks[i] = new Object();
+            usage[i] = new LongHashTable(USAGE_FIELDS, 64);
+            sessionLocks[i] = new Object();
+            sessions[i] = new LongHashTable(SESSION_FIELDS, 64);
+        }
+
+        Gauge.builder("isperp.radius.sessions", this, UsageAggregator::sessionCount)
+                .description("Sessões RADIUS acompanhadas em memória")
+                .register(meterRegistry);
+        Gauge.builder("isperp.radius.usage.pending", this, UsageAggregator::pendingCustomers)
+                .description("Linhas de consumo (cliente e dia) aguardando gravação")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("isperp.radius.usage.rows")
+                .description("Linhas de consumo gravadas em customer_usage")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("isperp.radius.flush.failures")
+                .description("Gravações de consumo que falharam e foram devolvidas à memória")
+                .register(meterRegistry);
+        this.sessionsExpired = Counter.builder("isperp.radius.sessions.expired")
+                .description("Sessões descartadas sem Stop dentro do tempo limite")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Contabiliza um Accounting-Request já validado. Retransmissões do mesmo pacote não
+     * somam de novo: a diferença para o último valor da sessão é zero.
+     * @param companyId empresa do NAS, à qual o cliente do User-Name já foi conferido
+     */
+    public void record(RadiusAccounting.Request request, long companyId, long now) {
+        if (request.statusType() == RadiusAccounting.STATUS_ACCOUNTING_ON
+                || request.statusType() == RadiusAccounting.STATUS_ACCOUNTING_OFF) {
+            // NAS reiniciado: as sessões dele terminaram sem Stop
+            nasRestarted(request.nasKey());
+            return;
+        }
+        if (!request.isSessionRecord() || request.customerId() <= 0) {
+            return;
+        }
+
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long seconds = 0;
+        int started = 0;
+        int stopped = 0;
+
+        int stripe = stripe(request.sessionKey());
+        synchronized (sessionLocks[stripe]) {
+            LongHashTable table = sessions[stripe];
+            int row = table.getOrCreate(request.sessionKey());
+            boolean known = table.get(row, SESSION_SEEN) != 0;
+            if (!known) {
+                table.set(row, SESSION_CUSTOMER, request.customerId());
+                table.set(row, SESSION_NAS, request.nasKey());
+                table.set(row, SESSION_COMPANY, companyId);
+                if (request.statusType() == RadiusAccounting.STATUS_START) {
+                    started = 1;
+                }
+                // Sessão vista pela primeira vez no meio (ex.: após reinício da aplicação): os
+                // contadores atuais viram a base, para não contar de novo o que já foi gravado
+            } else if (table.get(row, SESSION_STOPPED) == 0) {
+                bytesIn = delta(request.inputOctets(), table.get(row, SESSION_IN));
+                bytesOut = delta(request.outputOctets(), table.get(row, SESSION_OUT));
+                seconds = delta(request.sessionTime(), table.get(row, SESSION_TIME));
+            }
+
+            if (table.get(row, SESSION_STOPPED) == 0) {
+                table.set(row, SESSION_IN, request.inputOctets());
+                table.set(row, SESSION_OUT, request.outputOctets());
+                table.set(row, SESSION_TIME, request.sessionTime());
+                if (request.statusType() == RadiusAccounting.STATUS_STOP) {
+                    // Mantida até expirar, para que um Stop retransmitido não conte de novo
+                    table.set(row, SESSION_STOPPED, 1);
+                    stopped = 1;
+                }
+            }
+            table.set(row, SESSION_SEEN, now);
+        }
+
+        if ((bytesIn | bytesOut | seconds | started | stopped) == 0) {
+            return;
+        }
+        long key = (request.customerId() << DAY_BITS) | epochDay(now);
+        int usageStripe = stripe(key);
+        synchronized (usageLocks[usageStripe]) {
+            LongHashTable table = usage[usageStripe];
+            int row = table.getOrCreate(key);
+            table.add(row, BYTES_IN, bytesIn);
+            table.add(row, BYTES_OUT, bytesOut);
+            table.add(row, SESSIONS_STARTED, started);
+            table.add(row, SESSIONS_STOPPED, stopped);
+            table.add(row, SESSION_SECONDS, seconds);
+            table.set(row, COMPANY, companyId);
+        }
+    }
+
+    /**
+     * Grava o consumo acumulado desde o último flush. Em caso de falha, os contadores
+     * voltam para a memória e seguem para a próxima tentativa.
+     */
+    @Scheduled(fixedDelayString = "${isperp.radius.flush-interval-ms:60000}")
+    public void flush() {
+        expireSessions(System.currentTimeMillis());
+
+        List<LongHashTable> drained = drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        int rows = 0;
+        for (LongHashTable table : drained) {
+            rows += table.size();
+        }
+        // Uma linha por cliente e dia: chave seguida dos contadores
+        long[] flat = new long[rows * ROW_WIDTH];
+        int[] position = {0};
+        for (LongHashTable table : drained) {
+            table.forEach((t, row) -> {
+                int base = position[0];
+                flat[base] = t.key(row);
+                for (int field = 0; field < USAGE_FIELDS; field++) {
+                    flat[base + 1 + field] = t.get(row, field);
+                }
+                position[0] = base + ROW_WIDTH;
+            });
+        }
+
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        long start = System.nanoTime();
+        int written = 0;
+        try {
+            // Um bloco por transação: se um falhar, só ele e os seguintes voltam para a memória
+            while (written < rows) {
+                int offset = written;
+                int count = Math.min(batchSize, rows - written);
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                int base = (offset + i) * ROW_WIDTH;
+                                ps.setLong(1, flat[base + 1 + COMPANY]);
+                                ps.setLong(2, flat[base] >>> DAY_BITS);
+                                ps.setDate(3, Date.valueOf(LocalDate.ofEpochDay(flat[base] & DAY_MASK)));
+                                ps.setLong(4, flat[base + 1 + BYTES_IN]);
+                                ps.setLong(5, flat[base + 1 + BYTES_OUT]);
+                                ps.setLong(6, flat[base + 1 + SESSIONS_STARTED]);
+                                ps.setLong(7, flat[base + 1 + SESSIONS_STOPPED]);
+                                ps.setLong(8, flat[base + 1 + SESSION_SECONDS]);
+                                ps.setTimestamp(9, updatedAt);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return count;
+                            }
+                        }));
+                written += count;
+                rowsWritten.increment(count);
+            }
+        } catch (DataAccessException e) {
+            flushFailures.increment();
+            log.warn("Falha ao gravar consumo RADIUS, {} clientes devolvidos à memória: {}",
+                    rows - written, e.getMessage());
+            restore(flat, written, rows);
+            return;
+        }
+        log.debug("Consumo RADIUS gravado: {} clientes em {} ms", rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    void stop() {
+        // O listener para antes (depende deste bean): grava o que restou
+        flush();
+    }
+
+    private List<LongHashTable> drain() {
+        List<LongHashTable> drained = new ArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (usageLocks[i]) {
+                if (!usage[i].isEmpty()) {
+                    drained.add(usage[i]);
+                    usage[i] = new LongHashTable(USAGE_FIELDS, usage[i].size());
+                }
+            }
+        }
+        return drained;
+    }
+
+    private void restore(long[] flat, int fromRow, int rows) {
+        for (int r = fromRow; r < rows; r++) {
+            int base = r * ROW_WIDTH;
+            int stripe = stripe(flat[base]);
+            synchronized (usageLocks[stripe]) {
+                LongHashTable table = usage[stripe];
+                int row = table.getOrCreate(flat[base]);
+                for (int field = 0; field < COUNTERS; field++) {
+                    table.add(row, field, flat[base + 1 + field]);
+                }
+                table.set(row, COMPANY, flat[base + 1 + COMPANY]);
+            }
+        }
+    }
+
+    private void expireSessions(long now) {
+        long cutoff = now - sessionTimeoutMillis;
+        int expired = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (sessionLocks[i]) {
+                expired += sessions[i].removeIf((table, row) -> table.get(row, SESSION_SEEN) < cutoff);
+            }
+        }
+        sessionsExpired.increment(expired);
+    }
+
+    private void nasRestarted(long nasKey) {
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (sessionLocks[i]) {
+                sessions[i].removeIf((table, row) -> table.get(row, SESSION_NAS) == nasKey);
+            }
+        }
+    }
+
+    private int sessionCount() {
+        int count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (sessionLocks[i]) {
+                count += sessions[i].size();
+            }
+        }
+        return count;
+    }
+
+    private int pendingCustomers() {
+        int count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (usageLocks[i]) {
+                count += usage[i].size();
+            }
+        }
+        return count;
+    }
+
+    private long epochDay(long now) {
+        UsageDay day = currentDay;
+        if (now < day.startMillis() || now >= day.endMillis()) {
+            LocalDate date = Instant.ofEpochMilli(now).atZone(zone).toLocalDate();
+            day = new UsageDay(date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), date.toEpochDay());
+            currentDay = day;
+        }
+        return day.epochDay();
+    }
+
+    private record UsageDay(long startMillis, long endMillis, long epochDay) {
+    }
+
+    // Contadores que diminuem indicam reinício da sessão no NAS: o valor atual é todo novo
+    private static long delta(long current, long previous) {
+        return current >= previous ? current - previous : current;
+    }
+
+    private static int stripe(long key) {
+        return LongHashTable.hash(key) >>> 26;
+    }
+}
@@ -0,0 +1,86 @@
+package com.xingubit.isperp.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Janela reutilizável sobre os bytes (ASCII / ISO-8859-1) de um ByteBuffer, vista como CharSequence.
+ * Usada na leitura de arquivos de posição fixa: a mesma instância é reposicionada a cada campo,
+ * e só toString() copia os bytes para uma String.
+ */
+public final class ByteSlice implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public ByteSlice(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reposiciona a janela
+     * @param offset posição absoluta no buffer
+     * @param length quantidade de bytes
+     * @return esta instância
+     */
+    public ByteSlice set(int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, buffer.limit());
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new ByteSlice(buffer).set(offset + start, end - start);
+    }
+
+    /**
+     * Lê a janela como número sem sinal, ignorando espaços nas pontas
+     * @return o valor, ou -1 se estiver vazia, tiver outro caractere ou mais de 18 dígitos
+     */
+    public long parseLong() {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,243 @@
+package com.xingubit.isperp.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Leitura de arquivos de retorno de cobrança (boletos) nos layouts CNAB 240 (FEBRABAN)
+ * e CNAB 400 (posições do Bradesco), identificados pelo tamanho das linhas.
+ *
+ * O arquivo é mapeado em memória e percorrido byte a byte. Os campos são lidos por uma
+ * única {@link ByteSlice} reposicionada, sem criar Strings: apenas as liquidações geram
+ * um {@link Payment}. As posições seguem os manuais (a partir de 1, intervalos inclusivos).
+ *
+ * A referência do pagamento é o id da fatura, enviado no "seu número" do boleto.
+ */
+public final class CnabReturnParser {
+
+    public enum Layout {
+        CNAB240(240), CNAB400(400);
+
+        private final int lineLength;
+
+        Layout(int lineLength) {
+            this.lineLength = lineLength;
+        }
+    }
+
+    /**
+     * Liquidação lida do arquivo
+     * @param line linha do registro (no CNAB 240, a do segmento T)
+     * @param reference id da fatura informado no boleto, ou 0 se ausente
+     * @param payerCpf CPF normalizado do pagador, ou null (CNPJ, inválido ou ausente no layout)
+     * @param amountCents valor pago em centavos
+     * @param paidAt data da ocorrência, ou null se ausente
+     */
+    public record Payment(int line, long reference, String payerCpf, long amountCents, LocalDate paidAt) {
+    }
+
+    public record Result(Layout layout, int totalLines, int payments, int malformedLines) {
+    }
+
+    private CnabReturnParser() {
+    }
+
+    /**
+     * Lê o arquivo de retorno
+     * @param file arquivo de até 2 GB
+     * @param handler recebe cada liquidação, na ordem do arquivo
+     * @throws IllegalArgumentException se o arquivo estiver vazio ou o layout não for reconhecido
+     */
+    public static Result parse(Path file, Consumer<Payment> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Arquivo de retorno muito grande");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(buffer, handler);
+        }
+    }
+
+    /**
+     * Lê um retorno já carregado, do início ao limite do buffer
+     */
+    public static Result parse(ByteBuffer buffer, Consumer<Payment> handler) {
+        return new Scanner(buffer, handler).run();
+    }
+
+    private static final class Scanner {
+
+        private final ByteBuffer buffer;
+        private final ByteSlice slice;
+        private final Consumer<Payment> handler;
+
+        private Layout layout;
+        private int lineStart;
+        private int lineNumber;
+        private int payments;
+        private int malformedLines;
+
+        // CNAB 240: segmento T de liquidação aguardando o segmento U, que traz o valor pago
+        private boolean pending;
+        private int pendingLine;
+        private long pendingReference;
+        private String pendingCpf;
+
+        Scanner(ByteBuffer buffer, Consumer<Payment> handler) {
+            this.buffer = buffer;
+            this.slice = new ByteSlice(buffer);
+            this.handler = handler;
+        }
+
+        Result run() {
+            int limit = buffer.limit();
+            int position = 0;
+            while (position < limit) {
+                int end = position;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int next = end + 1;
+                if (end > position && buffer.get(end - 1) == '\r') {
+                    end--;
+                }
+                lineNumber++;
+
+                int length = end - position;
+                if (length > 0) {
+                    if (layout == null) {
+                        layout = detect(length);
+                    }
+                    if (length != layout.lineLength) {
+                        malformedLines++;
+                    } else {
+                        lineStart = position;
+                        if (layout == Layout.CNAB240) {
+                            cnab240();
+                        } else {
+                            cnab400();
+                        }
+                    }
+                }
+                position = next;
+            }
+
+            if (layout == null) {
+                throw new IllegalArgumentException("Arquivo vazio");
+            }
+            if (pending) {
+                // Segmento T sem o U correspondente (arquivo truncado)
+                malformedLines++;
+            }
+            return new Result(layout, lineNumber, payments, malformedLines);
+        }
+
+        private void cnab240() {
+            // Tipo 3 = detalhe; cabeçalhos e trailers de arquivo e lote são ignorados
+            if (at(8) != '3') {
+                return;
+            }
+            char segment = at(14);
+            if (segment == 'T') {
+                if (pending) {
+                    malformedLines++;
+                }
+                pending = isSettlement240(number(16, 17));
+                if (pending) {
+                    pendingLine = lineNumber;
+                    long reference = number(59, 73);
+                    pendingReference = reference > 0 ? reference : Math.max(0, number(106, 130));
+                    // Tipo de inscrição 1 = CPF, com os 11 dígitos no fim do campo 134-148
+                    pendingCpf = at(133) == '1' ? CpfValidator.normalize(field(138, 148)) : null;
+                }
+            } else if (segment == 'U' && pending) {
+                pending = false;
+                long amount = number(78, 92);
+                if (amount < 0) {
+                    malformedLines++;
+                    return;
+                }
+                LocalDate paidAt = date(138, 145);
+                emit(new Payment(pendingLine, pendingReference, pendingCpf, amount,
+                        paidAt != null ? paidAt : date(146, 153)));
+            }
+        }
+
+        private void cnab400() {
+            // Tipo 1 = transação; o layout 400 não traz o documento do pagador
+            if (at(1) != '1' || !isSettlement400(number(109, 110))) {
+                return;
+            }
+            long amount = number(254, 266);
+            if (amount < 0) {
+                malformedLines++;
+                return;
+            }
+            long reference = number(38, 62);
+            if (reference <= 0) {
+                reference = Math.max(0, number(117, 126));
+            }
+            emit(new Payment(lineNumber, reference, null, amount, date(111, 116)));
+        }
+
+        // 06 = liquidação, 17 = liquidação após baixa
+        private static boolean isSettlement240(long code) {
+            return code == 6 || code == 17;
+        }
+
+        // 06 = liquidação normal, 15 = em cartório, 17 = após baixa
+        private static boolean isSettlement400(long code) {
+            return code == 6 || code == 15 || code == 17;
+        }
+
+        private void emit(Payment payment) {
+            payments++;
+            handler.accept(payment);
+        }
+
+        private char at(int position) {
+            return (char) (buffer.get(lineStart + position - 1) & 0xFF);
+        }
+
+        private ByteSlice field(int from, int to) {
+            return slice.set(lineStart + from - 1, to - from + 1);
+        }
+
+        private long number(int from, int to) {
+            return field(from, to).parseLong();
+        }
+
+        // DDMMAAAA ou DDMMAA (século 2000); null se zerada ou inválida
+        private LocalDate date(int from, int to) {
+            long value = number(from, to);
+            if (value <= 0) {
+                return null;
+            }
+            try {
+                if (to - from + 1 == 8) {
+                    return LocalDate.of((int) (value % 10_000), (int) (value / 10_000 % 100), (int) (value / 1_000_000));
+                }
+                return LocalDate.of(2000 + (int) (value % 100), (int) (value / 100 % 100), (int) (value / 10_000));
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        private static Layout detect(int length) {
+            for (Layout candidate : Layout.values()) {
+                if (candidate.lineLength == length) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Layout de retorno não reconhecido: linhas de " + length + " posições");
+        }
+    }
+}
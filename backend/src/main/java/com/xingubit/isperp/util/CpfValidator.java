@@ -1,56 +1,56 @@
 package com.xingubit.isperp.util;
 
+import java.util.BitSet;
+
 /**
- * Utilitário para validação e formatação de CPF
+ * Utilitário para validação e formatação de CPF.
+ * As operações percorrem os caracteres uma única vez, ignorando tudo que não
+ * for dígito, sem expressões regulares nem strings intermediárias.
  */
 public class CpfValidator {
 
+    private static final int CPF_LENGTH = 11;
+
     /**
      * Valida se um CPF é válido
      * @param cpf CPF a ser validado (pode conter pontos e traços)
      * @return true se o CPF for válido, false caso contrário
      */
-    public static boolean isValid(String cpf) {
-        if (cpf == null || cpf.trim().isEmpty()) {
-            return false;
-        }
-
-        // Remove caracteres não numéricos
-        String cleanCpf = cpf.replaceAll("[^\\d]", "");
-
-        // Verifica se tem 11 dígitos
-        if (cleanCpf.length() != 11) {
-            return false;
-        }
+    public static boolean isValid(CharSequence cpf) {
+        return cpf != null && scan(cpf, null);
+    }
 
-        // Verifica se todos os dígitos são iguais (CPF inválido)
-        if (cleanCpf.matches("(\\d)\\1{10}")) {
-            return false;
+    /**
+     * Valida e normaliza o CPF em uma única passada
+     * @param cpf CPF a ser validado (pode conter pontos e traços)
+     * @return CPF apenas com os 11 dígitos, ou null se for inválido. Se a entrada
+     *         já estiver normalizada, a própria instância é devolvida.
+     */
+    public static String normalize(CharSequence cpf) {
+        if (cpf == null) {
+            return null;
         }
-
-        // Calcula o primeiro dígito verificador
-        int sum = 0;
-        for (int i = 0; i < 9; i++) {
-            sum += Character.getNumericValue(cleanCpf.charAt(i)) * (10 - i);
+        if (cpf instanceof String value && value.length() == CPF_LENGTH && isAllDigits(value)) {
+            return scan(value, null) ? value : null;
         }
-        int remainder = sum % 11;
-        int firstDigit = remainder < 2 ? 0 : 11 - remainder;
 
-        // Verifica o primeiro dígito
-        if (Character.getNumericValue(cleanCpf.charAt(9)) != firstDigit) {
-            return false;
-        }
+        char[] digits = new char[CPF_LENGTH];
+        return scan(cpf, digits) ? new String(digits) : null;
+    }
 
-        // Calcula o segundo dígito verificador
-        sum = 0;
-        for (int i = 0; i < 10; i++) {
-            sum += Character.getNumericValue(cleanCpf.charAt(i)) * (11 - i);
+    /**
+     * Valida um lote de CPFs
+     * @param cpfs CPFs a serem validados (posições nulas são inválidas)
+     * @return conjunto de bits com o bit i ligado quando cpfs[i] é válido
+     */
+    public static BitSet validateAll(CharSequence[] cpfs) {
+        BitSet valid = new BitSet(cpfs.length);
+        for (int i = 0; i < cpfs.length; i++) {
+            if (isValid(cpfs[i])) {
+                valid.set(i);
+            }
         }
-        remainder = sum % 11;
-        int secondDigit = remainder < 2 ? 0 : 11 - remainder;
-
-        // Verifica o segundo dígito
-        return Character.getNumericValue(cleanCpf.charAt(10)) == secondDigit;
+        return valid;
     }
 
     /**
@@ -59,19 +59,31 @@ public class CpfValidator {
      * @return CPF formatado (xxx.xxx.xxx-xx)
      */
     public static String format(String cpf) {
-        if (cpf == null || cpf.trim().isEmpty()) {
+        if (cpf == null || cpf.isBlank()) {
             return cpf;
         }
 
-        // Remove caracteres não numéricos
-        String cleanCpf = cpf.replaceAll("[^\\d]", "");
-
-        // Aplica a máscara se tiver 11 dígitos
-        if (cleanCpf.length() == 11) {
-            return cleanCpf.replaceAll("(\\d{3})(\\d{3})(\\d{3})(\\d{2})", "$1.$2.$3-$4");
+        char[] formatted = new char[CPF_LENGTH + 3];
+        int count = 0;
+        int position = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (count == CPF_LENGTH) {
+                return cpf; // Retorna o original se tiver mais de 11 dígitos
+            }
+            if (count == 3 || count == 6) {
+                formatted[position++] = '.';
+            } else if (count == 9) {
+                formatted[position++] = '-';
+            }
+            formatted[position++] = c;
+            count++;
         }
 
-        return cpf; // Retorna o original se não tiver 11 dígitos
+        return count == CPF_LENGTH ? new String(formatted) : cpf;
     }
 
     /**
@@ -80,9 +92,89 @@ public class CpfValidator {
      * @return CPF apenas com números
      */
     public static String clean(String cpf) {
-        if (cpf == null) {
-            return null;
+        if (cpf == null || isAllDigits(cpf)) {
+            return cpf;
+        }
+
+        char[] digits = new char[cpf.length()];
+        int count = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c;
+            }
+        }
+        return new String(digits, 0, count);
+    }
+
+    /**
+     * Percorre o CPF calculando os dígitos verificadores
+     * @param cpf CPF com ou sem formatação
+     * @param digits se não for null, recebe os 11 dígitos encontrados
+     * @return true se houver exatamente 11 dígitos, não todos iguais, e os verificadores conferirem
+     */
+    private static boolean scan(CharSequence cpf, char[] digits) {
+        int count = 0;
+        int first = -1;
+        boolean allEqual = true;
+        int firstSum = 0;
+        int secondSum = 0;
+        int firstCheck = 0;
+        int secondCheck = 0;
+
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (count == CPF_LENGTH) {
+                return false;
+            }
+
+            int digit = c - '0';
+            if (count == 0) {
+                first = digit;
+            } else if (digit != first) {
+                allEqual = false;
+            }
+
+            if (count < 9) {
+                firstSum += digit * (10 - count);
+            } else if (count == 9) {
+                firstCheck = digit;
+            } else {
+                secondCheck = digit;
+            }
+            if (count < 10) {
+                secondSum += digit * (11 - count);
+            }
+
+            if (digits != null) {
+                digits[count] = c;
+            }
+            count++;
+        }
+
+        // CPFs com todos os dígitos iguais passam no cálculo, mas são inválidos
+        if (count != CPF_LENGTH || allEqual) {
+            return false;
+        }
+
+        return firstCheck == checkDigit(firstSum) && secondCheck == checkDigit(secondSum);
+    }
+
+    private static int checkDigit(int sum) {
+        int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+
+    private static boolean isAllDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
         }
-        return cpf.replaceAll("[^\\d]", "");
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.xingubit.isperp.util;
+
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilitário para leitura e escrita de campos CSV (RFC 4180)
+ */
+public class CsvUtils {
+
+    public static final char SEPARATOR = ',';
+
+    /**
+     * Escapa um campo para CSV, colocando-o entre aspas apenas quando necessário
+     * @param value valor do campo (null vira campo vazio)
+     * @return valor pronto para ser escrito na linha
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Lê o próximo registro CSV, aceitando campos entre aspas com separadores,
+     * aspas escapadas e quebras de linha
+     * @param reader leitor posicionado no início de um registro
+     * @return campos do registro ou null no fim do arquivo
+     */
+    public static List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
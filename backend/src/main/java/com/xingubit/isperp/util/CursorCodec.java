@@ -0,0 +1,48 @@
+package com.xingubit.isperp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utilitário para codificação dos cursores de paginação keyset.
+ * O cursor carrega a última chave retornada (id e, opcionalmente, nome)
+ * em Base64 URL-safe, para que o cliente o trate como um token opaco.
+ */
+public class CursorCodec {
+
+    private static final char SEPARATOR = ':';
+
+    public record Cursor(long id, String name) {
+    }
+
+    /**
+     * Codifica a chave do último registro da página
+     * @param id id do último registro
+     * @param name nome do último registro (null quando a ordenação é por id)
+     * @return token do cursor
+     */
+    public static String encode(long id, String name) {
+        String raw = name == null ? Long.toString(id) : id + String.valueOf(SEPARATOR) + name;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um token gerado por {@link #encode(long, String)}
+     * @param token token do cursor
+     * @return cursor decodificado
+     * @throws IllegalArgumentException se o token for inválido
+     */
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new Cursor(Long.parseLong(raw), null);
+            }
+            return new Cursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
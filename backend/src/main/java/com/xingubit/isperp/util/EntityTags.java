@@ -0,0 +1,124 @@
+package com.xingubit.isperp.util;
+
+import com.xingubit.isperp.dto.CollectionFingerprint;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Utilitário para geração de ETags/Last-Modified e leitura do If-Match.
+ * O ETag de uma entidade é "tipo-id-versão"; o de uma listagem é derivado
+ * do {@link CollectionFingerprint} da tabela.
+ */
+public class EntityTags {
+
+    /**
+     * @return ETag da entidade, ex.: "customer-42-3"
+     */
+    public static String of(String type, Long id, Long version) {
+        return "\"" + type + "-" + id + "-" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * @return ETag da listagem, ex.: "customers-1200-1305-1717000000000-4410"
+     */
+    public static String ofCollection(String type, CollectionFingerprint fingerprint) {
+        return "\"" + type + "-" + orZero(fingerprint.count()) + "-" + orZero(fingerprint.maxId())
+                + "-" + lastModified(fingerprint.lastModified()) + "-" + orZero(fingerprint.versionSum()) + "\"";
+    }
+
+    /**
+     * ETag de uma listagem que depende da empresa de quem pede, ex.: "customers-c7-0-1305-1717000000000-0".
+     * Sem a empresa, marcas com o mesmo contador (ou ainda sem alterações) teriam o mesmo ETag e um
+     * cache compartilhado poderia responder 304 com a listagem de outra marca.
+     */
+    public static String ofCollection(String type, Long companyId, CollectionFingerprint fingerprint) {
+        return ofCollection(type + "-c" + orZero(companyId), fingerprint);
+    }
+
+    /**
+     * Resposta 200 com ETag e Last-Modified da entidade. Em GETs o Spring responde
+     * 304 sozinho quando o If-None-Match/If-Modified-Since do cliente ainda valem.
+     */
+    public static ResponseEntity.BodyBuilder ok(String type, Long id, Long version, LocalDateTime updatedAt) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(of(type, id, version));
+        if (updatedAt != null) {
+            builder.lastModified(lastModified(updatedAt));
+        }
+        return builder;
+    }
+
+    /**
+     * Confere o If-None-Match da listagem antes de carregá-la
+     * @return true se o cliente já tem a versão atual (a resposta fica marcada como 304)
+     */
+    public static boolean notModified(WebRequest request, String type, CollectionFingerprint fingerprint) {
+        return request.checkNotModified(ofCollection(type, fingerprint), lastModified(fingerprint.lastModified()));
+    }
+
+    /**
+     * Como {@link #notModified(WebRequest, String, CollectionFingerprint)}, para listagens por empresa.
+     * A resposta deve levar Vary: Authorization, já que o conteúdo muda com o token.
+     */
+    public static boolean notModified(WebRequest request, String type, Long companyId,
+                                      CollectionFingerprint fingerprint) {
+        return request.checkNotModified(ofCollection(type, companyId, fingerprint),
+                lastModified(fingerprint.lastModified()));
+    }
+
+    /**
+     * @return instante em milissegundos para o cabeçalho Last-Modified, ou -1 se desconhecido
+     */
+    public static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Extrai a versão esperada do cabeçalho If-Match
+     * @param ifMatch valor do cabeçalho (pode ser null)
+     * @param type tipo da entidade alvo
+     * @param id id da entidade alvo
+     * @return versão esperada, ou null se o cabeçalho estiver ausente ou for "*"
+     * @throws PreconditionFailedException se o ETag não pertencer à entidade alvo
+     */
+    public static Long parseVersion(String ifMatch, String type, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+
+        String prefix = type + "-" + id + "-";
+        if (!tag.startsWith(prefix)) {
+            throw new PreconditionFailedException("If-Match não corresponde ao recurso");
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match inválido");
+        }
+    }
+
+    /**
+     * Confere a versão atual com a esperada no If-Match
+     * @throws PreconditionFailedException se forem diferentes
+     */
+    public static void checkVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion == null ? 0L : currentVersion)) {
+            throw new PreconditionFailedException("O registro foi alterado por outra requisição");
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
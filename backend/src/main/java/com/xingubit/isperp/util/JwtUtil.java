@@ -1,13 +1,16 @@
 package com.xingubit.isperp.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,25 +23,45 @@ public class JwtUtil {
     
     @Value("${jwt.expiration:86400000}") // 24 horas
     private Long expiration;
-    
-    private SecretKey getSigningKey() {
-        // Usar uma chave baseada no secret configurado
-        return Keys.hmacShaKeyFor(secret.getBytes());
+
+    // Chave e parser são imutáveis e thread-safe: criados uma única vez
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
     
+    public static final String COMPANY_CLAIM = "company";
+
     public String generateToken(String username, String role) {
+        return generateToken(username, role, null);
+    }
+
+    /**
+     * @param companyId empresa do usuário, gravada na claim {@link #COMPANY_CLAIM} (omitida se null)
+     */
+    public String generateToken(String username, String role, Long companyId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
+        if (companyId != null) {
+            claims.put(COMPANY_CLAIM, companyId);
+        }
         return createToken(claims, username);
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
@@ -55,16 +78,18 @@ public class JwtUtil {
     }
     
     public <T> T extractClaim(String token, java.util.function.Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+
+    /**
+     * Verifica assinatura e expiração do token e devolve suas claims
+     * @param token JWT compacto
+     * @return claims verificadas
+     * @throws io.jsonwebtoken.JwtException se o token for inválido ou estiver expirado
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
     
     public Boolean isTokenExpired(String token) {
@@ -72,7 +97,8 @@ public class JwtUtil {
     }
     
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        // Uma única verificação de assinatura para usuário e expiração
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(username) && !claims.getExpiration().before(new Date()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.xingubit.isperp.util;
+
+import java.util.BitSet;
+
+/**
+ * Tabela hash de chave long para uma linha de contadores long de largura fixa, sem boxing:
+ * chaves e valores ficam em arrays primitivos (endereçamento aberto com sondagem linear).
+ * A chave 0 é reservada para posições vazias.
+ *
+ * Não é thread-safe: quem compartilha a tabela entre threads deve sincronizar o acesso.
+ * Uma tabela que não é mais alterada, publicada com segurança, pode ser lida por várias threads.
+ */
+public final class LongHashTable {
+
+    private static final long EMPTY = 0L;
+
+    private final int width;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * @param width quantidade de contadores por chave
+     * @param expectedSize quantidade de chaves esperada, para dimensionar a tabela
+     */
+    public LongHashTable(int width, int expectedSize) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Largura deve ser positiva");
+        }
+        this.width = width;
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Espalha os bits da chave; também usado para escolher a faixa (stripe) de uma chave
+     */
+    public static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return linha da chave, ou -1 se ela não existir
+     */
+    public int indexOf(long key) {
+        checkKey(key);
+        int slot = hash(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return linha da chave, criada com os contadores zerados se ela não existir.
+     *         A linha só vale até a próxima inserção ou remoção.
+     */
+    public int getOrCreate(long key) {
+        checkKey(key);
+        if (size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        int slot = hash(key) & mask;
+        long current;
+        while ((current = keys[slot]) != EMPTY) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    public long key(int row) {
+        return keys[row];
+    }
+
+    public long get(int row, int field) {
+        return values[row * width + field];
+    }
+
+    public void set(int row, int field, long value) {
+        values[row * width + field] = value;
+    }
+
+    public void add(int row, int field, long delta) {
+        values[row * width + field] += delta;
+    }
+
+    /**
+     * Percorre as linhas ocupadas. A tabela não pode ser alterada durante a visita.
+     */
+    public void forEach(RowVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.visit(this, slot);
+            }
+        }
+    }
+
+    /**
+     * Remove as linhas aceitas pelo filtro, reconstruindo a tabela em uma passada
+     * @return quantidade de linhas removidas
+     */
+    public int removeIf(RowFilter filter) {
+        BitSet removed = new BitSet(keys.length);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY && filter.test(this, slot)) {
+                removed.set(slot);
+            }
+        }
+        // A remoção acontece depois da varredura, para não deslocar linhas ainda não visitadas
+        int count = removed.cardinality();
+        if (count > 0) {
+            rebuild(keys.length, removed);
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(LongHashTable table, int row);
+    }
+
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(LongHashTable table, int row);
+    }
+
+    private void rehash(int capacity) {
+        rebuild(capacity, null);
+    }
+
+    private void rebuild(int capacity, BitSet skip) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY && (skip == null || !skip.get(slot))) {
+                insert(oldKeys[slot], oldValues, slot * width);
+                size++;
+            }
+        }
+    }
+
+    private void insert(long key, long[] source, int offset) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        System.arraycopy(source, offset, values, slot * width, width);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity * width];
+        mask = capacity - 1;
+        size = 0;
+        // Fator de carga 0,5: sequências de sondagem curtas
+        resizeAt = capacity / 2;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2 && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Chave 0 é reservada");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.xingubit.isperp.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Leitura e resposta de pacotes RADIUS Accounting-Request (RFC 2866).
+ *
+ * O pacote é lido direto do ByteBuffer recebido para um {@link Request} reutilizável,
+ * sem criar Strings: o User-Name é convertido no id do cliente e o Acct-Session-Id vira
+ * uma chave long (hash FNV-1a, combinado com a identificação do NAS).
+ *
+ * O User-Name do assinante é o id do cliente, opcionalmente seguido de "@realm".
+ */
+public final class RadiusAccounting {
+
+    public static final int ACCOUNTING_REQUEST = 4;
+    public static final int ACCOUNTING_RESPONSE = 5;
+
+    public static final int STATUS_START = 1;
+    public static final int STATUS_STOP = 2;
+    public static final int STATUS_INTERIM_UPDATE = 3;
+    public static final int STATUS_ACCOUNTING_ON = 7;
+    public static final int STATUS_ACCOUNTING_OFF = 8;
+
+    public static final int USER_NAME = 1;
+    public static final int NAS_IP_ADDRESS = 4;
+    public static final int NAS_IDENTIFIER = 32;
+    public static final int ACCT_STATUS_TYPE = 40;
+    public static final int ACCT_INPUT_OCTETS = 42;
+    public static final int ACCT_OUTPUT_OCTETS = 43;
+    public static final int ACCT_SESSION_ID = 44;
+    public static final int ACCT_SESSION_TIME = 46;
+    public static final int ACCT_INPUT_GIGAWORDS = 52;
+    public static final int ACCT_OUTPUT_GIGAWORDS = 53;
+
+    public static final int HEADER_LENGTH = 20;
+    public static final int MAX_PACKET_LENGTH = 4096;
+
+    private static final int AUTHENTICATOR_OFFSET = 4;
+    private static final int AUTHENTICATOR_LENGTH = 16;
+    private static final byte[] ZERO_AUTHENTICATOR = new byte[AUTHENTICATOR_LENGTH];
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Campos de um Accounting-Request, reaproveitado a cada pacote pela thread que o lê
+     */
+    public static final class Request {
+        private int identifier;
+        private int statusType;
+        private long customerId;
+        private long sessionKey;
+        private long nasKey;
+        private long inputOctets;
+        private long outputOctets;
+        private long sessionTime;
+
+        public int identifier() {
+            return identifier;
+        }
+
+        public int statusType() {
+            return statusType;
+        }
+
+        // 0 se o User-Name estiver ausente ou não for um id de cliente
+        public long customerId() {
+            return customerId;
+        }
+
+        public long sessionKey() {
+            return sessionKey;
+        }
+
+        public long nasKey() {
+            return nasKey;
+        }
+
+        public long inputOctets() {
+            return inputOctets;
+        }
+
+        public long outputOctets() {
+            return outputOctets;
+        }
+
+        public long sessionTime() {
+            return sessionTime;
+        }
+
+        public boolean isSessionRecord() {
+            return statusType == STATUS_START || statusType == STATUS_STOP || statusType == STATUS_INTERIM_UPDATE;
+        }
+
+        private void reset() {
+            identifier = 0;
+            statusType = 0;
+            customerId = 0;
+            sessionKey = 0;
+            nasKey = 0;
+            inputOctets = 0;
+            outputOctets = 0;
+            sessionTime = 0;
+        }
+    }
+
+    private RadiusAccounting() {
+    }
+
+    /**
+     * Lê um Accounting-Request, do início ao limite do buffer
+     * @return false se o pacote não for um Accounting-Request bem formado
+     */
+    public static boolean parse(ByteBuffer packet, Request request) {
+        int length = length(packet);
+        if (length < 0 || (packet.get(0) & 0xFF) != ACCOUNTING_REQUEST) {
+            return false;
+        }
+        request.reset();
+        request.identifier = packet.get(1) & 0xFF;
+
+        long inputLow = 0;
+        long inputHigh = 0;
+        long outputLow = 0;
+        long outputHigh = 0;
+        long sessionHash = FNV_OFFSET;
+        boolean hasSession = false;
+        long nasIdentifier = 0;
+
+        int position = HEADER_LENGTH;
+        while (position < length) {
+            if (position + 2 > length) {
+                return false;
+            }
+            int type = packet.get(position) & 0xFF;
+            int attributeLength = packet.get(position + 1) & 0xFF;
+            if (attributeLength < 2 || position + attributeLength > length) {
+                return false;
+            }
+            int valueStart = position + 2;
+            int valueLength = attributeLength - 2;
+
+            switch (type) {
+                case USER_NAME -> request.customerId = customerId(packet, valueStart, valueLength);
+                case ACCT_SESSION_ID -> {
+                    sessionHash = fnv(sessionHash, packet, valueStart, valueLength);
+                    hasSession = true;
+                }
+                case NAS_IDENTIFIER -> nasIdentifier = fnv(FNV_OFFSET, packet, valueStart, valueLength);
+                case NAS_IP_ADDRESS, ACCT_STATUS_TYPE, ACCT_INPUT_OCTETS, ACCT_OUTPUT_OCTETS,
+                     ACCT_SESSION_TIME, ACCT_INPUT_GIGAWORDS, ACCT_OUTPUT_GIGAWORDS -> {
+                    if (valueLength != 4) {
+                        return false;
+                    }
+                    long value = packet.getInt(valueStart) & 0xFFFFFFFFL;
+                    switch (type) {
+                        case NAS_IP_ADDRESS -> request.nasKey = value;
+                        case ACCT_STATUS_TYPE -> request.statusType = (int) value;
+                        case ACCT_INPUT_OCTETS -> inputLow = value;
+                        case ACCT_OUTPUT_OCTETS -> outputLow = value;
+                        case ACCT_SESSION_TIME -> request.sessionTime = value;
+                        case ACCT_INPUT_GIGAWORDS -> inputHigh = value;
+                        default -> outputHigh = value;
+                    }
+                }
+                default -> {
+                    // Atributos não usados na contabilização são ignorados
+                }
+            }
+            position += attributeLength;
+        }
+
+        if (request.statusType == 0 || (request.isSessionRecord() && !hasSession)) {
+            return false;
+        }
+        if (request.nasKey == 0) {
+            request.nasKey = nasIdentifier;
+        }
+        request.inputOctets = inputHigh << 32 | inputLow;
+        request.outputOctets = outputHigh << 32 | outputLow;
+
+        // O mesmo Acct-Session-Id pode se repetir em NAS diferentes
+        long sessionKey = sessionHash ^ (request.nasKey * FNV_PRIME);
+        request.sessionKey = sessionKey == 0 ? 1 : sessionKey;
+        return true;
+    }
+
+    /**
+     * Confere o Request Authenticator: MD5(código + id + tamanho + 16 zeros + atributos + segredo)
+     */
+    public static boolean verify(ByteBuffer packet, byte[] secret, MessageDigest md5) {
+        int length = length(packet);
+        if (length < 0) {
+            return false;
+        }
+        byte[] expected = authenticator(packet, length, ZERO_AUTHENTICATOR, secret, md5);
+        byte[] actual = new byte[AUTHENTICATOR_LENGTH];
+        packet.get(AUTHENTICATOR_OFFSET, actual);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Preenche o Request Authenticator de um pacote montado (usado por geradores de carga)
+     */
+    public static void sign(ByteBuffer packet, byte[] secret, MessageDigest md5) {
+        packet.put(AUTHENTICATOR_OFFSET, ZERO_AUTHENTICATOR);
+        packet.put(AUTHENTICATOR_OFFSET, authenticator(packet, packet.limit(), ZERO_AUTHENTICATOR, secret, md5));
+    }
+
+    /**
+     * Monta o Accounting-Response (sem atributos) do pedido, pronto para envio
+     */
+    public static void writeResponse(ByteBuffer request, byte[] secret, MessageDigest md5, ByteBuffer response) {
+        byte[] requestAuthenticator = new byte[AUTHENTICATOR_LENGTH];
+        request.get(AUTHENTICATOR_OFFSET, requestAuthenticator);
+
+        response.clear();
+        response.put((byte) ACCOUNTING_RESPONSE)
+                .put(request.get(1))
+                .putShort((short) HEADER_LENGTH)
+                .put(requestAuthenticator);
+        response.flip();
+        // Response Authenticator: MD5(código + id + tamanho + Request Authenticator + segredo)
+        response.put(AUTHENTICATOR_OFFSET, authenticator(response, HEADER_LENGTH, requestAuthenticator, secret, md5));
+    }
+
+    /**
+     * @return tamanho declarado no cabeçalho, ou -1 se for inválido para o buffer
+     */
+    private static int length(ByteBuffer packet) {
+        if (packet.limit() < HEADER_LENGTH) {
+            return -1;
+        }
+        int length = packet.getShort(2) & 0xFFFF;
+        return length < HEADER_LENGTH || length > MAX_PACKET_LENGTH || length > packet.limit() ? -1 : length;
+    }
+
+    private static byte[] authenticator(ByteBuffer packet, int length, byte[] authenticator, byte[] secret,
+                                        MessageDigest md5) {
+        md5.reset();
+        md5.update(packet.duplicate().position(0).limit(AUTHENTICATOR_OFFSET));
+        md5.update(authenticator);
+        md5.update(packet.duplicate().position(HEADER_LENGTH).limit(length));
+        md5.update(secret);
+        return md5.digest();
+    }
+
+    // Dígitos até o "@" (ou o fim); qualquer outro caractere invalida o id
+    private static long customerId(ByteBuffer packet, int start, int length) {
+        long value = 0;
+        int digits = 0;
+        for (int i = start; i < start + length; i++) {
+            byte b = packet.get(i);
+            if (b == '@') {
+                break;
+            }
+            if (b < '0' || b > '9' || ++digits > 18) {
+                return 0;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static long fnv(long hash, ByteBuffer packet, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            hash ^= packet.get(i) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
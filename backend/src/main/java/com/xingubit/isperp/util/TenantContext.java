@@ -0,0 +1,43 @@
+package com.xingubit.isperp.util;
+
+/**
+ * Empresa (marca) da requisição atual, definida pelo JwtAuthenticationFilter a partir
+ * da claim "company" do token. As consultas de clientes sempre filtram por ela, o que
+ * restringe a leitura à partição da empresa.
+ * O valor é por thread: código executado em outra thread (streaming da resposta,
+ * parallelStream) deve receber o id da empresa como parâmetro.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<Long> COMPANY_ID = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static void setCompanyId(Long companyId) {
+        COMPANY_ID.set(companyId);
+    }
+
+    /**
+     * @return id da empresa da requisição, ou null fora de uma requisição autenticada
+     */
+    public static Long getCompanyId() {
+        return COMPANY_ID.get();
+    }
+
+    /**
+     * @return id da empresa da requisição
+     * @throws IllegalStateException se o usuário não estiver vinculado a uma empresa
+     */
+    public static Long requireCompanyId() {
+        Long companyId = COMPANY_ID.get();
+        if (companyId == null) {
+            throw new IllegalStateException("Usuário sem empresa vinculada");
+        }
+        return companyId;
+    }
+
+    public static void clear() {
+        COMPANY_ID.remove();
+    }
+}
@@ -0,0 +1,88 @@
+package com.xingubit.isperp.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Utilitário para normalização de texto em buscas:
+ * remove acentos, converte para minúsculas e colapsa espaços
+ */
+public class TextNormalizer {
+
+    /**
+     * Normaliza o texto para comparação sem acento e sem caixa
+     * @param text texto original
+     * @return texto normalizado ("José  da Silva" vira "jose da silva"), vazio se null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Extrai apenas os dígitos do texto
+     * @param text texto original
+     * @return dígitos na ordem em que aparecem, vazio se null
+     */
+    public static String digits(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Indica se o texto é composto só por dígitos e separadores de documento/telefone
+     * @param text texto original
+     * @return true para entradas como "123.456", "(11) 98765-4321"
+     */
+    public static boolean isNumeric(String text) {
+        boolean hasDigit = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c != '.' && c != '-' && c != '/' && c != '(' && c != ')' && c != ' ' && c != '+') {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package com.xingubit.isperp.util;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache limitado de tokens JWT já verificados, indexado pelo SHA-256 do token.
+ * Requisições repetidas da mesma sessão evitam a verificação HMAC e o parse das claims.
+ * Cada entrada vale até a expiração do próprio token. O limite de tamanho é aplicado pelo
+ * Caffeine sem lock global: leituras concorrentes do filtro JWT não se serializam.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public record VerifiedToken(String username, String role, Long companyId, List<GrantedAuthority> authorities,
+                                long expiresAtMillis) {
+
+        public VerifiedToken(String username, String role, Long companyId, long expiresAtMillis) {
+            this(username, role, companyId, List.of(new SimpleGrantedAuthority("ROLE_" + role)), expiresAtMillis);
+        }
+
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+
+    private final ConcurrentMap<String, VerifiedToken> entries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") long maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken verified, long currentTime) {
+                        return untilExpiry(verified);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return untilExpiry(verified);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .<String, VerifiedToken>build()
+                .asMap();
+    }
+
+    private static long untilExpiry(VerifiedToken verified) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, verified.expiresAtMillis() - System.currentTimeMillis()));
+    }
+
+    /**
+     * @param token JWT compacto
+     * @return dados do token verificado, ou null se não estiver no cache ou tiver expirado
+     */
+    public VerifiedToken get(String token) {
+        String key = digest(token);
+        VerifiedToken verified = entries.get(key);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, verified);
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        entries.put(digest(token), verified);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -15,7 +15,7 @@ public class CpfValidator implements ConstraintValidator<ValidCpf, String> {
 
     @Override
     public boolean isValid(String cpf, ConstraintValidatorContext context) {
-        if (cpf == null || cpf.trim().isEmpty()) {
+        if (cpf == null || cpf.isBlank()) {
             return true; // Deixa a validação @NotBlank cuidar de campos obrigatórios
         }
 
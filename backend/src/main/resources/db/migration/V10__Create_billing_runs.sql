@@ -0,0 +1,45 @@
+-- Faturamento mensal: uma execução por empresa e período, dividida em faixas de id
+-- de clientes processadas em paralelo. Cada faixa é confirmada em sua própria
+-- transação e marcada como DONE, o que permite retomar uma execução interrompida.
+CREATE TABLE billing_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    period CHAR(7) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    due_date DATE NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    total_chunks INT NOT NULL DEFAULT 0,
+    completed_chunks INT NOT NULL DEFAULT 0,
+    invoices_created BIGINT NOT NULL DEFAULT 0,
+    elapsed_millis BIGINT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP(3) NOT NULL,
+    heartbeat_at TIMESTAMP(3) NOT NULL,
+    finished_at TIMESTAMP(3) NULL,
+    UNIQUE KEY uk_billing_runs_period (company_id, period)
+);
+
+CREATE TABLE billing_run_chunks (
+    run_id BIGINT NOT NULL,
+    chunk_no INT NOT NULL,
+    first_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    invoices_created INT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP(3) NULL,
+    PRIMARY KEY (run_id, chunk_no)
+);
+
+-- A chave única garante no máximo uma fatura por cliente e período, mesmo com reprocessamento
+CREATE TABLE invoices (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    period CHAR(7) NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    due_date DATE NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    billing_run_id BIGINT NULL,
+    created_at TIMESTAMP(3) NOT NULL,
+    UNIQUE KEY uk_invoices_customer_period (company_id, customer_id, period),
+    INDEX idx_invoices_period (company_id, period)
+);
@@ -0,0 +1,7 @@
+-- Baixa de faturas pelos arquivos de retorno CNAB
+ALTER TABLE invoices
+    ADD COLUMN paid_amount DECIMAL(10,2) NULL AFTER status,
+    ADD COLUMN paid_at DATE NULL AFTER paid_amount;
+
+-- Conciliação por CPF: faturas em aberto de cada cliente
+CREATE INDEX idx_invoices_customer_status ON invoices(company_id, customer_id, status);
@@ -0,0 +1,16 @@
+-- Consumo diário por cliente, agregado em memória a partir da contabilização RADIUS
+-- e somado aqui a cada flush (INSERT ... ON DUPLICATE KEY UPDATE).
+-- Os ids de clientes vêm do alocador id_generators e são únicos entre empresas;
+-- como customers é particionada, não há chave estrangeira.
+CREATE TABLE customer_usage (
+    customer_id BIGINT NOT NULL,
+    usage_date DATE NOT NULL,
+    bytes_in BIGINT NOT NULL DEFAULT 0,
+    bytes_out BIGINT NOT NULL DEFAULT 0,
+    sessions_started INT NOT NULL DEFAULT 0,
+    sessions_stopped INT NOT NULL DEFAULT 0,
+    session_seconds BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (customer_id, usage_date),
+    INDEX idx_customer_usage_date (usage_date)
+);
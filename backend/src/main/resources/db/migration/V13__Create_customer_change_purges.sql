@@ -0,0 +1,15 @@
+-- Marca d'água do expurgo do outbox por empresa: maior id de customer_changes já removido.
+-- Um cursor só expira (410) quando é anterior a essa marca da própria empresa;
+-- o MIN(id) global expirava cursores de empresas sem nenhuma alteração no período.
+CREATE TABLE customer_change_purges (
+    company_id BIGINT PRIMARY KEY,
+    max_purged_id BIGINT NOT NULL
+);
+
+-- Expurgos já feitos antes desta tabela: qualquer id abaixo do mais antigo restante
+-- pode ter sido removido, então a marca inicial de cada empresa é esse limite global.
+INSERT INTO customer_change_purges (company_id, max_purged_id)
+SELECT c.company_id, (SELECT MIN(id) - 1 FROM customer_changes)
+FROM customer_changes c
+GROUP BY c.company_id
+HAVING (SELECT MIN(id) - 1 FROM customer_changes) > 0;
@@ -0,0 +1,23 @@
+-- Concentradores (NAS) autorizados a enviar contabilização RADIUS. Cada um tem o próprio
+-- segredo e pertence a uma empresa: só credita consumo a clientes dessa empresa.
+-- Pacotes de endereços fora desta tabela são descartados.
+CREATE TABLE radius_clients (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    address VARCHAR(45) NOT NULL,
+    secret VARCHAR(255) NOT NULL,
+    description VARCHAR(255) NULL,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    CONSTRAINT uk_radius_clients_address UNIQUE (address),
+    INDEX idx_radius_clients_company (company_id)
+);
+
+-- Consumo passa a ser da empresa do cliente
+ALTER TABLE customer_usage ADD COLUMN company_id BIGINT NULL FIRST;
+UPDATE customer_usage u JOIN customers c ON c.id = u.customer_id SET u.company_id = c.company_id;
+-- Ids que não eram clientes (aceitos antes da validação do User-Name) não têm a quem pertencer
+DELETE FROM customer_usage WHERE company_id IS NULL;
+ALTER TABLE customer_usage
+    MODIFY company_id BIGINT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (company_id, customer_id, usage_date);
@@ -0,0 +1,7 @@
+-- Todo usuário pertence a uma empresa: sem ela o token não delimita os clientes visíveis
+-- e as requisições falham. Usuários que ficaram sem empresa vão para a primeira cadastrada,
+-- como em V7.
+SET @default_company_id = (SELECT COALESCE(MIN(id), 1) FROM companies);
+
+UPDATE users SET company_id = @default_company_id WHERE company_id IS NULL;
+ALTER TABLE users MODIFY company_id BIGINT NOT NULL;
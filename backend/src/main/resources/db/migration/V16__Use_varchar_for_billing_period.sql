@@ -0,0 +1,4 @@
+-- O período (yyyy-MM) foi criado como CHAR(7), mas as entidades o mapeiam como VARCHAR,
+-- como o restante do esquema: com ddl-auto=validate a aplicação não subia.
+ALTER TABLE billing_runs MODIFY period VARCHAR(7) NOT NULL;
+ALTER TABLE invoices MODIFY period VARCHAR(7) NOT NULL;
@@ -0,0 +1,6 @@
+-- Coluna de versão para controle de concorrência otimista (@Version)
+-- e geração de ETags
+ALTER TABLE customers ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE companies ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE site_settings ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- Nomeia as chaves únicas de customers para que o serviço identifique
+-- qual restrição foi violada (CPF ou email) a partir do erro do banco
+ALTER TABLE customers RENAME INDEX cpf TO uk_customers_cpf;
+ALTER TABLE customers RENAME INDEX email TO uk_customers_email;
+
+-- Os índices simples duplicavam as chaves únicas e só encareciam as escritas
+DROP INDEX idx_customers_cpf ON customers;
+DROP INDEX idx_customers_email ON customers;
@@ -0,0 +1,11 @@
+-- Alocador de ids em tabela (MySQL não tem sequences). Com IDENTITY o Hibernate
+-- precisa de um round-trip por INSERT e desliga o batch; com o alocador "pooled"
+-- cada instância reserva um bloco de ids por vez e os inserts vão em lote.
+CREATE TABLE id_generators (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+-- Começa com folga acima do maior id atual, independente do tamanho do bloco
+INSERT INTO id_generators (name, next_val)
+SELECT 'customers', COALESCE(MAX(id), 0) + 1000 FROM customers;
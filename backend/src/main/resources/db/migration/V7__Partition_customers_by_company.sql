@@ -0,0 +1,34 @@
+-- Clientes e usuários passam a pertencer a uma empresa (marca).
+-- Os registros existentes ficam com a primeira empresa cadastrada.
+SET @default_company_id = (SELECT COALESCE(MIN(id), 1) FROM companies);
+
+ALTER TABLE users ADD COLUMN company_id BIGINT NULL AFTER id;
+UPDATE users SET company_id = @default_company_id;
+CREATE INDEX idx_users_company ON users(company_id);
+
+ALTER TABLE customers ADD COLUMN company_id BIGINT NOT NULL DEFAULT 0 AFTER id;
+UPDATE customers SET company_id = @default_company_id;
+ALTER TABLE customers ALTER COLUMN company_id DROP DEFAULT;
+
+-- Toda chave única de uma tabela particionada precisa conter a coluna de partição:
+-- a chave primária vira (company_id, id) e CPF/email passam a ser únicos por empresa.
+-- O id deixa de ser AUTO_INCREMENT; ele já é reservado pela tabela id_generators.
+-- Os índices secundários começam por company_id, seguindo a ordem das consultas.
+ALTER TABLE customers
+    MODIFY id BIGINT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (company_id, id),
+    DROP INDEX uk_customers_cpf,
+    ADD UNIQUE KEY uk_customers_cpf (company_id, cpf),
+    DROP INDEX uk_customers_email,
+    ADD UNIQUE KEY uk_customers_email (company_id, email),
+    DROP INDEX idx_customers_active,
+    ADD INDEX idx_customers_active (company_id, active),
+    DROP INDEX idx_customers_name,
+    ADD INDEX idx_customers_name (company_id, name);
+
+-- Com HASH sobre um inteiro, cada empresa cai na partição company_id % 16: as consultas
+-- filtradas por empresa leem uma única partição. Para mais empresas que partições,
+-- aumentar com ALTER TABLE customers ADD PARTITION PARTITIONS n.
+-- Tabelas particionadas não aceitam chaves estrangeiras, por isso company_id não tem FK.
+ALTER TABLE customers PARTITION BY HASH (company_id) PARTITIONS 16;
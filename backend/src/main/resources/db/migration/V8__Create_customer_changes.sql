@@ -0,0 +1,14 @@
+-- Outbox de alterações de clientes, gravado na mesma transação da alteração.
+-- Consumidores (RADIUS, cobrança, frontend) leem em ordem de id a partir do
+-- último cursor recebido em GET /customers/changes; exclusões ficam como DELETED.
+CREATE TABLE customer_changes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    customer_version BIGINT NULL,
+    changed_at TIMESTAMP(3) NOT NULL
+);
+
+CREATE INDEX idx_customer_changes_company ON customer_changes(company_id, id);
+CREATE INDEX idx_customer_changes_changed_at ON customer_changes(changed_at);
@@ -0,0 +1,18 @@
+-- Trilha de auditoria: quem alterou qual cliente, usuário, empresa ou configuração.
+-- Gravada em lote pelo AuditTrail, fora da transação da alteração.
+CREATE TABLE audit_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    occurred_at TIMESTAMP(3) NOT NULL,
+    actor VARCHAR(255) NOT NULL,
+    company_id BIGINT NULL,
+    request_id VARCHAR(64) NULL,
+    entity_type VARCHAR(32) NOT NULL,
+    entity_id BIGINT NULL,
+    action VARCHAR(32) NOT NULL,
+    changes JSON NULL
+);
+
+-- Consultas do GET /audit: sempre por empresa, em ordem decrescente de id
+CREATE INDEX idx_audit_events_company ON audit_events(company_id, id);
+CREATE INDEX idx_audit_events_entity ON audit_events(company_id, entity_type, entity_id, id);
+CREATE INDEX idx_audit_events_actor ON audit_events(company_id, actor, id);
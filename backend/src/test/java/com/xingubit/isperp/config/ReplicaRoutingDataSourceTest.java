@@ -0,0 +1,195 @@
+package com.xingubit.isperp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roteamento primário/réplica com dois MySQL reais: a réplica replica o primário por
+ * binlog, e o atraso é produzido com SOURCE_DELAY.
+ */
+@Testcontainers
+class ReplicaRoutingDataSourceTest {
+
+    private static final String IMAGE = "mysql:8.0";
+    private static final int PRIMARY_SERVER_ID = 1;
+    private static final int REPLICA_SERVER_ID = 2;
+    private static final long MAX_LAG_SECONDS = 2;
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    private static final MySQLContainer<?> primary = new MySQLContainer<>(IMAGE)
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCommand("--server-id=" + PRIMARY_SERVER_ID, "--log-bin=mysql-bin");
+
+    @Container
+    private static final MySQLContainer<?> replica = new MySQLContainer<>(IMAGE)
+            .withNetwork(network)
+            .withCommand("--server-id=" + REPLICA_SERVER_ID);
+
+    private static HikariDataSource primaryDataSource;
+    private static HikariDataSource replicaDataSource;
+    private static JdbcTemplate primaryJdbc;
+    private static JdbcTemplate replicaRootJdbc;
+    private static ReplicaLagMonitor monitor;
+    private static JdbcTemplate routedJdbc;
+    private static TransactionTemplate readWrite;
+    private static TransactionTemplate readOnly;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        primaryDataSource = dataSource(primary, primary.getUsername(), false);
+        // SHOW REPLICA STATUS (monitor) e CHANGE REPLICATION SOURCE exigem privilégios de root
+        replicaDataSource = dataSource(replica, "root", true);
+        primaryJdbc = new JdbcTemplate(primaryDataSource);
+        replicaRootJdbc = new JdbcTemplate(dataSource(replica, "root", false));
+
+        Map<String, Object> binlog = new JdbcTemplate(dataSource(primary, "root", false))
+                .queryForMap("SHOW MASTER STATUS");
+        replicaRootJdbc.execute("CHANGE REPLICATION SOURCE TO SOURCE_HOST = 'primary', SOURCE_PORT = 3306, " +
+                "SOURCE_USER = 'root', SOURCE_PASSWORD = '" + primary.getPassword() + "', " +
+                "SOURCE_LOG_FILE = '" + binlog.get("File") + "', SOURCE_LOG_POS = " + binlog.get("Position") + ", " +
+                "GET_SOURCE_PUBLIC_KEY = 1");
+        replicaRootJdbc.execute("START REPLICA");
+
+        primaryJdbc.execute("CREATE TABLE routing_probe (id BIGINT PRIMARY KEY, note VARCHAR(32))");
+        awaitCondition(ReplicaRoutingDataSourceTest::tableReplicated, "tabela replicada");
+
+        monitor = new ReplicaLagMonitor(replicaDataSource, MAX_LAG_SECONDS, true, new SimpleMeterRegistry());
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(monitor::isAvailable);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Target.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.Target.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        routedJdbc = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (primaryDataSource != null) {
+            primaryDataSource.close();
+        }
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() throws Exception {
+        awaitReplicaAvailable();
+
+        Integer serverId = readOnly.execute(status -> currentServerId());
+
+        assertThat(serverId).isEqualTo(REPLICA_SERVER_ID);
+    }
+
+    @Test
+    void writeTransactionGoesToPrimary() throws Exception {
+        awaitReplicaAvailable();
+
+        Integer serverId = readWrite.execute(status -> {
+            routedJdbc.update("INSERT INTO routing_probe (id, note) VALUES (1, 'escrita')");
+            return currentServerId();
+        });
+
+        assertThat(serverId).isEqualTo(PRIMARY_SERVER_ID);
+        assertThat(primaryJdbc.queryForObject("SELECT COUNT(*) FROM routing_probe WHERE id = 1", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws Exception {
+        try {
+            replicaRootJdbc.execute("STOP REPLICA");
+            replicaRootJdbc.execute("CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 60");
+            replicaRootJdbc.execute("START REPLICA");
+            awaitReplicaAvailable();
+
+            // A réplica recebe o evento mas só o aplica depois de SOURCE_DELAY: o atraso cresce
+            primaryJdbc.update("INSERT INTO routing_probe (id, note) VALUES (2, 'atrasada')");
+            awaitCondition(() -> {
+                monitor.check();
+                return !monitor.isAvailable();
+            }, "réplica marcada como atrasada");
+
+            Integer serverId = readOnly.execute(status -> currentServerId());
+            Integer rows = readOnly.execute(status ->
+                    routedJdbc.queryForObject("SELECT COUNT(*) FROM routing_probe WHERE id = 2", Integer.class));
+
+            assertThat(serverId).isEqualTo(PRIMARY_SERVER_ID);
+            assertThat(rows).isEqualTo(1);
+            assertThat(replicaHasRow(2)).isFalse();
+        } finally {
+            replicaRootJdbc.execute("STOP REPLICA");
+            replicaRootJdbc.execute("CHANGE REPLICATION SOURCE TO SOURCE_DELAY = 0");
+            replicaRootJdbc.execute("START REPLICA");
+        }
+    }
+
+    private static void awaitReplicaAvailable() throws InterruptedException {
+        awaitCondition(() -> {
+            monitor.check();
+            return monitor.isAvailable();
+        }, "réplica em dia");
+    }
+
+    private static Integer currentServerId() {
+        return routedJdbc.queryForObject("SELECT @@server_id", Integer.class);
+    }
+
+    private static boolean tableReplicated() {
+        return replicaRootJdbc.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE table_schema = ? AND table_name = 'routing_probe'", Integer.class,
+                replica.getDatabaseName()) == 1;
+    }
+
+    private static boolean replicaHasRow(long id) {
+        return tableReplicated() && replicaRootJdbc.queryForObject("SELECT COUNT(*) FROM " +
+                replica.getDatabaseName() + ".routing_probe WHERE id = ?", Integer.class, id) > 0;
+    }
+
+    private static HikariDataSource dataSource(MySQLContainer<?> container, String username, boolean readOnly) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(username);
+        dataSource.setPassword(container.getPassword());
+        dataSource.setReadOnly(readOnly);
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Tempo esgotado aguardando: " + description);
+            }
+            Thread.sleep(200);
+        }
+    }
+}
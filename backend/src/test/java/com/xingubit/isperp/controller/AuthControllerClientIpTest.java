@@ -0,0 +1,160 @@
+package com.xingubit.isperp.controller;
+
+import com.xingubit.isperp.dto.LoginRequest;
+import com.xingubit.isperp.dto.LoginResponse;
+import com.xingubit.isperp.service.AuthService;
+import com.xingubit.isperp.service.LoginAdmissionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Limite de logins por IP atrás do nginx: todas as conexões chegam do mesmo endereço (o proxy),
+ * e o cliente vem no X-Forwarded-For. Clientes diferentes não podem dividir o mesmo limite.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = AuthControllerClientIpTest.TestApplication.class,
+        properties = {
+                "isperp.login.max-concurrent-per-ip=1",
+                "isperp.login.max-concurrent-per-account=1"
+        })
+class AuthControllerClientIpTest {
+
+    private static final String CLIENT_A = "203.0.113.10";
+    private static final String CLIENT_B = "203.0.113.20";
+
+    @Configuration
+    @ImportAutoConfiguration({
+            PropertyPlaceholderAutoConfiguration.class,
+            ServletWebServerFactoryAutoConfiguration.class,
+            // Aplica server.forward-headers-strategy (RemoteIpValve) do application.yml
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            ValidationAutoConfiguration.class
+    })
+    @Import({AuthController.class, LoginAdmissionService.class})
+    static class TestApplication {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LoginAdmissionService loginAdmissionService;
+
+    @MockBean
+    private AuthService authService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List<String> admittedIps = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CountDownLatch admitted;
+
+    @BeforeEach
+    void holdAdmittedLogins() {
+        admitted = new CountDownLatch(2);
+        // Mesma admissão do AuthService; a tentativa fica presa até o teste liberar
+        when(authService.authenticate(any(LoginRequest.class), any())).thenAnswer(invocation -> {
+            LoginRequest request = invocation.getArgument(0);
+            String clientIp = invocation.getArgument(1);
+            try (LoginAdmissionService.Permit permit = loginAdmissionService.acquire(request.getUsername(), clientIp)) {
+                admittedIps.add(clientIp);
+                admitted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return LoginResponse.builder().success(true).message("Login realizado com sucesso").build();
+        });
+    }
+
+    @AfterEach
+    void releaseLogins() {
+        release.countDown();
+    }
+
+    @Test
+    void clientsWithDifferentForwardedIpsGetSeparateLimits() throws Exception {
+        CompletableFuture<HttpResponse<String>> first = login("a@exemplo.com.br", CLIENT_A);
+        CompletableFuture<HttpResponse<String>> second = login("b@exemplo.com.br", CLIENT_B);
+
+        // Os dois entram ao mesmo tempo, mesmo com limite de 1 por IP e o mesmo endereço remoto
+        assertThat(admitted.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(admittedIps).containsExactlyInAnyOrder(CLIENT_A, CLIENT_B);
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(second.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void sameForwardedIpSharesTheLimit() throws Exception {
+        CompletableFuture<HttpResponse<String>> first = login("a@exemplo.com.br", CLIENT_A);
+        awaitAdmitted(1);
+
+        HttpResponse<String> second = login("b@exemplo.com.br", CLIENT_A).get(10, TimeUnit.SECONDS);
+
+        assertThat(second.statusCode()).isEqualTo(429);
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        assertThat(admittedIps).containsExactly(CLIENT_A);
+    }
+
+    private void awaitAdmitted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (admittedIps.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Tempo esgotado aguardando o login ser admitido");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> login(String username, String forwardedFor) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"segredo\"}"))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
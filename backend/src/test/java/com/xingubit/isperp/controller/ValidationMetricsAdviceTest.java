@@ -0,0 +1,116 @@
+package com.xingubit.isperp.controller;
+
+import com.xingubit.isperp.service.BusinessErrorMetrics;
+import com.xingubit.isperp.service.CustomerChangeService;
+import com.xingubit.isperp.service.CustomerExportService;
+import com.xingubit.isperp.service.CustomerImportService;
+import com.xingubit.isperp.service.CustomerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * CPF inválido no corpo é recusado pelo @Valid antes do service; a métrica
+ * isperp.business.errors{error=invalid_cpf} precisa contar esses casos também.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = ValidationMetricsAdviceTest.TestApplication.class)
+class ValidationMetricsAdviceTest {
+
+    @Configuration
+    @ImportAutoConfiguration({
+            PropertyPlaceholderAutoConfiguration.class,
+            ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            ValidationAutoConfiguration.class
+    })
+    @Import({CustomerController.class, ValidationMetricsAdvice.class, BusinessErrorMetrics.class})
+    static class TestApplication {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private CustomerService customerService;
+
+    @MockBean
+    private CustomerExportService customerExportService;
+
+    @MockBean
+    private CustomerImportService customerImportService;
+
+    @MockBean
+    private CustomerChangeService customerChangeService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void invalidCpfInRequestBodyIsCounted() throws Exception {
+        double before = invalidCpfCount();
+
+        HttpResponse<String> response = post("{\"name\":\"Cliente\",\"cpf\":\"12345678900\",\"active\":true}");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(invalidCpfCount()).isEqualTo(before + 1);
+        verify(customerService, never()).createCustomer(any());
+    }
+
+    @Test
+    void otherValidationErrorsAreNotCountedAsInvalidCpf() throws Exception {
+        double before = invalidCpfCount();
+
+        HttpResponse<String> response = post("{\"name\":\"\",\"cpf\":\"52998224725\",\"active\":true}");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(invalidCpfCount()).isEqualTo(before);
+    }
+
+    private double invalidCpfCount() {
+        return meterRegistry.get("isperp.business.errors").tag("error", "invalid_cpf").counter().count();
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/api/customers"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
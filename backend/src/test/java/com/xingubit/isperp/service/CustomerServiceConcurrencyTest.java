@@ -0,0 +1,257 @@
+package com.xingubit.isperp.service;
+
+import com.xingubit.isperp.entity.Customer;
+import com.xingubit.isperp.exception.PreconditionFailedException;
+import com.xingubit.isperp.util.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Escritas concorrentes em clientes:
+ * - criações simultâneas com o mesmo CPF ou email: as chaves únicas deixam passar uma só,
+ *   e as demais recebem o erro traduzido ("CPF já cadastrado" / "Email já cadastrado");
+ * - atualizações com If-Match: entre escritores que leram a mesma versão, só um grava;
+ *   os demais recebem PreconditionFailedException (412) em vez de sobrescrever o primeiro.
+ */
+@SpringBootTest
+@Testcontainers
+class CustomerServiceConcurrencyTest {
+
+    private static final int WRITERS = 8;
+    // Empresa própria por teste: os clientes não se misturam entre os casos
+    private static final AtomicLong COMPANY_IDS = new AtomicLong(1000);
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> mysql.getJdbcUrl() + "?rewriteBatchedStatements=true");
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long companyId;
+
+    @BeforeEach
+    void setTenant() {
+        companyId = COMPANY_IDS.incrementAndGet();
+        TenantContext.setCompanyId(companyId);
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void parallelCreatesWithSameCpfKeepOneRow() throws Exception {
+        String cpf = "52998224725";
+
+        List<Future<Customer>> results = createInParallel(i -> customer("Cliente " + i, cpf));
+
+        assertOneCreatedAndOthersRejected(results, "CPF já cadastrado");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers WHERE company_id = ? AND cpf = ?",
+                Integer.class, companyId, cpf)).isEqualTo(1);
+    }
+
+    @Test
+    void parallelCreatesWithSameEmailKeepOneRow() throws Exception {
+        String email = "disputado@exemplo.com.br";
+
+        List<Future<Customer>> results = createInParallel(i -> {
+            Customer customer = customer("Cliente " + i, validCpf(100_000_000L + i));
+            customer.setEmail(email);
+            return customer;
+        });
+
+        assertOneCreatedAndOthersRejected(results, "Email já cadastrado");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers WHERE company_id = ? AND email = ?",
+                Integer.class, companyId, email)).isEqualTo(1);
+    }
+
+    @Test
+    void parallelWritersWithSameVersionLoseWithPreconditionFailed() throws Exception {
+        Customer created = customerService.createCustomer(customer("Cliente Original", "52998224725"));
+        Long id = created.getId();
+        Long version = created.getVersion();
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Customer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                String name = "Escritor " + i;
+                results.add(executor.submit(() -> {
+                    TenantContext.setCompanyId(companyId);
+                    try {
+                        start.await();
+                        return customerService.updateCustomer(id, customer(name, "52998224725"), version);
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            int preconditionFailed = 0;
+            Customer winner = null;
+            for (Future<Customer> result : results) {
+                try {
+                    winner = result.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(PreconditionFailedException.class);
+                    preconditionFailed++;
+                }
+            }
+
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(preconditionFailed).isEqualTo(WRITERS - 1);
+            assertThat(winner.getVersion()).isEqualTo(version + 1);
+
+            // O que ficou gravado é exatamente o que o vencedor recebeu
+            Customer stored = customerService.getCustomerById(id).orElseThrow();
+            assertThat(stored.getName()).isEqualTo(winner.getName());
+            assertThat(stored.getVersion()).isEqualTo(winner.getVersion());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void staleVersionAfterAnotherWriteIsRejected() {
+        Customer created = customerService.createCustomer(customer("Cliente Original", "11144477735"));
+        Long staleVersion = created.getVersion();
+
+        customerService.updateCustomer(created.getId(), customer("Primeira Alteração", "11144477735"), staleVersion);
+
+        assertThatThrownBy(() -> customerService.updateCustomer(created.getId(),
+                customer("Alteração Perdida", "11144477735"), staleVersion))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(customerService.getCustomerById(created.getId()).orElseThrow().getName())
+                .isEqualTo("Primeira Alteração");
+    }
+
+    @Test
+    void updateWithoutIfMatchReturnsStoredVersionAndCreatedAt() {
+        Customer created = customerService.createCustomer(customer("Cliente Original", "39053344705"));
+
+        Customer updated = customerService.updateCustomer(created.getId(), customer("Sem If-Match", "39053344705"));
+
+        assertThat(updated.getVersion()).isEqualTo(created.getVersion() + 1);
+        assertThat(updated.getCreatedAt()).isNotNull();
+        assertThat(updated.getName()).isEqualTo("Sem If-Match");
+    }
+
+    private List<Future<Customer>> createInParallel(IntFunction<Customer> customers) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Customer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < WRITERS; i++) {
+                Customer customer = customers.apply(i);
+                results.add(executor.submit(() -> {
+                    TenantContext.setCompanyId(companyId);
+                    try {
+                        start.await();
+                        return customerService.createCustomer(customer);
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }));
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        return results;
+    }
+
+    private static void assertOneCreatedAndOthersRejected(List<Future<Customer>> results, String message)
+            throws Exception {
+        int created = 0;
+        int rejected = 0;
+        for (Future<Customer> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch (ExecutionException e) {
+                // O erro da chave única chega traduzido, não como DataIntegrityViolationException
+                assertThat(e.getCause())
+                        .isNotInstanceOf(DataIntegrityViolationException.class)
+                        .hasMessage(message);
+                rejected++;
+            }
+        }
+        assertThat(created).isEqualTo(1);
+        assertThat(rejected).isEqualTo(WRITERS - 1);
+    }
+
+    /**
+     * CPF válido a partir de uma base de 9 dígitos
+     */
+    private static String validCpf(long base) {
+        int[] digits = new int[11];
+        String prefix = String.format("%09d", base);
+        for (int i = 0; i < 9; i++) {
+            digits[i] = prefix.charAt(i) - '0';
+        }
+        digits[9] = checkDigit(digits, 9);
+        digits[10] = checkDigit(digits, 10);
+        StringBuilder cpf = new StringBuilder(11);
+        for (int digit : digits) {
+            cpf.append(digit);
+        }
+        return cpf.toString();
+    }
+
+    private static int checkDigit(int[] digits, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += digits[i] * (length + 1 - i);
+        }
+        int remainder = sum * 10 % 11;
+        return remainder == 10 ? 0 : remainder;
+    }
+
+    private static Customer customer(String name, String cpf) {
+        return Customer.builder()
+                .name(name)
+                .cpf(cpf)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+// Teste de carga dos endpoints de clientes (k6 - https://k6.io)
+//
+// Compare os dois modos de execução subindo o backend com e sem virtual threads:
+//   ISPERP_VIRTUAL_THREADS=false ./gradlew bootRun   ->  k6 run -e MODE=platform scripts/loadtest/customers.js
+//   ISPERP_VIRTUAL_THREADS=true  ./gradlew bootRun   ->  k6 run -e MODE=virtual  scripts/loadtest/customers.js
+//
+// Variáveis: BASE_URL (padrão http://localhost:8080/api), USERNAME e PASSWORD (obrigatórias),
+// RATE (requisições/s por cenário, padrão 200), DURATION (padrão 2m).
+// O resumo (vazão, p50/p95/p99 por endpoint) é gravado em loadtest-<MODE>.json.
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const MODE = __ENV.MODE || 'platform';
+const RATE = parseInt(__ENV.RATE || '200', 10);
+const DURATION = __ENV.DURATION || '2m';
+
+const pageLatency = new Trend('customers_page_duration', true);
+const searchLatency = new Trend('customers_search_duration', true);
+const byIdLatency = new Trend('customers_by_id_duration', true);
+
+function scenario(exec) {
+  return {
+    executor: 'constant-arrival-rate',
+    exec,
+    rate: RATE,
+    timeUnit: '1s',
+    duration: DURATION,
+    preAllocatedVUs: 100,
+    maxVUs: 2000,
+  };
+}
+
+export const options = {
+  scenarios: {
+    page: scenario('page'),
+    search: scenario('search'),
+    byId: scenario('byId'),
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+    customers_page_duration: ['p(99)<1000'],
+    customers_search_duration: ['p(99)<1000'],
+    customers_by_id_duration: ['p(99)<500'],
+  },
+};
+
+export function setup() {
+  if (!__ENV.USERNAME || !__ENV.PASSWORD) {
+    throw new Error('Informe USERNAME e PASSWORD de um usuário válido (-e USERNAME=... -e PASSWORD=...)');
+  }
+  const login = http.post(`${BASE_URL}/auth/login`, JSON.stringify({
+    username: __ENV.USERNAME,
+    password: __ENV.PASSWORD,
+  }), { headers: { 'Content-Type': 'application/json' } });
+  check(login, { 'login ok': (r) => r.status === 200 });
+  const token = login.json('token');
+  const headers = { Authorization: `Bearer ${token}` };
+
+  // Ids reais para o cenário de busca por id
+  const page = http.get(`${BASE_URL}/api/customers/page?size=200`, { headers });
+  const ids = page.status === 200 ? page.json('items').map((c) => c.id) : [];
+  return { headers, ids };
+}
+
+export function page(data) {
+  const res = http.get(`${BASE_URL}/api/customers/page?size=50`, { headers: data.headers, tags: { name: 'page' } });
+  check(res, { 'page 200': (r) => r.status === 200 });
+  pageLatency.add(res.timings.duration);
+}
+
+const TERMS = ['silva', 'santos', 'maria', 'joao', 'oliveira', 'souza', '123', 'sp'];
+
+export function search(data) {
+  const q = TERMS[Math.floor(Math.random() * TERMS.length)];
+  const res = http.get(`${BASE_URL}/api/customers/search?q=${q}&limit=20`,
+    { headers: data.headers, tags: { name: 'search' } });
+  check(res, { 'search 200': (r) => r.status === 200 });
+  searchLatency.add(res.timings.duration);
+}
+
+export function byId(data) {
+  if (data.ids.length === 0) {
+    return;
+  }
+  const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+  const res = http.get(`${BASE_URL}/api/customers/${id}`, { headers: data.headers, tags: { name: 'byId' } });
+  check(res, { 'byId 200': (r) => r.status === 200 });
+  byIdLatency.add(res.timings.duration);
+}
+
+export function handleSummary(data) {
+  return {
+    [`loadtest-${MODE}.json`]: JSON.stringify(data, null, 2),
+    stdout: `\nModo: ${MODE}\n` +
+      `Requisições/s: ${data.metrics.http_reqs.values.rate.toFixed(1)}\n` +
+      ['customers_page_duration', 'customers_search_duration', 'customers_by_id_duration'].map((name) => {
+        const v = data.metrics[name].values;
+        return `${name}: p50=${v['p(50)'].toFixed(1)}ms p95=${v['p(95)'].toFixed(1)}ms p99=${v['p(99)'].toFixed(1)}ms`;
+      }).join('\n') + '\n',
+  };
+}